@@ -0,0 +1,81 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet.jingle;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing and serialization of SDP generated by libwebrtc.
+ * <br>
+ * Only methods of {@link SDP} available before parsing was moved to {@link SDPLines} are used, so the same benchmark
+ * may be run against both implementations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class SDPBenchmark {
+
+	@Param({"libwebrtc-publisher-offer", "libwebrtc-offer-24", "libwebrtc-offer-48", "libwebrtc-recvonly-answer-24"})
+	public String fixture;
+
+	private String input;
+	private SDP parsed;
+
+	@Setup
+	public void setup() {
+		input = load(fixture);
+		parsed = parse(input);
+		if (parsed == null) {
+			throw new IllegalStateException("Fixture " + fixture + " is not a valid SDP");
+		}
+	}
+
+	@Benchmark
+	public SDP parse() {
+		return parse(input);
+	}
+
+	@Benchmark
+	public String serialize() {
+		return parsed.toString("1", Content.Creator.responder, SDP.Direction.incoming);
+	}
+
+	private static SDP parse(String sdp) {
+		return SDP.from(sdp, name -> Content.Creator.initiator, Content.Creator.responder);
+	}
+
+	private static String load(String name) {
+		try (InputStream in = SDPBenchmark.class.getResourceAsStream("/sdp/" + name + ".sdp")) {
+			if (in == null) {
+				throw new IllegalArgumentException("Missing fixture " + name);
+			}
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+}
@@ -17,13 +17,15 @@
  */
 package tigase.meet;
 
-import tigase.meet.janus.JanusConnection;
-import tigase.meet.janus.JanusSession;
+import tigase.meet.janus.JSEP;
+import tigase.meet.janus.JanusConnectionPool;
+import tigase.meet.janus.JanusSessionPool;
 import tigase.meet.janus.videoroom.JanusVideoRoomPlugin;
 import tigase.meet.janus.videoroom.LocalPublisher;
 import tigase.meet.janus.videoroom.LocalSubscriber;
 import tigase.xmpp.jid.BareJID;
 
+import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.BiFunction;
 
@@ -32,10 +34,10 @@ public abstract class AbstractMeet<T extends AbstractParticipation> {
 	public static final BareJID ALLOW_EVERYONE = BareJID.bareJIDInstanceNS("*");
 
 	private final Object roomId;
-	private final JanusConnection janusConnection;
+	private final JanusConnectionPool janusConnectionPool;
 
-	public AbstractMeet(JanusConnection janusConnection, Object roomId) {
-		this.janusConnection = janusConnection;
+	public AbstractMeet(JanusConnectionPool janusConnectionPool, Object roomId) {
+		this.janusConnectionPool = janusConnectionPool;
 		this.roomId = roomId;
 	}
 
@@ -43,42 +45,76 @@ public abstract class AbstractMeet<T extends AbstractParticipation> {
 		return roomId;
 	}
 
-	public JanusConnection getJanusConnection() {
-		return janusConnection;
+	public JanusConnectionPool getJanusConnectionPool() {
+		return janusConnectionPool;
 	}
 
-	protected CompletableFuture<T> join(String displayName, BiFunction<LocalPublisher, LocalSubscriber, T> participationConstructor) {
-		return janusConnection.createSession()
-				.thenCompose(session -> this.createParticipation(session, displayName, participationConstructor)
+	/**
+	 * Returns number of most recent speakers whose video is forwarded to each participant or 0 if video of all
+	 * participants is forwarded.
+	 */
+	public int getLastN() {
+		return 0;
+	}
+
+	/**
+	 * Returns time for which changes of subscribed streams of a participant are collected before being sent to Janus.
+	 */
+	public Duration getSubscriptionUpdateWindow() {
+		return Duration.ZERO;
+	}
+
+	/**
+	 * Returns time for which ICE candidates of a session are collected before being sent together to Janus or to the
+	 * participant.
+	 */
+	public Duration getCandidateBatchWindow() {
+		return Duration.ZERO;
+	}
+
+	/**
+	 * Returns max. time for which ICE candidates of Janus are awaited to be sent within the first Jingle description of
+	 * a session or zero if all candidates should be trickled. Waiting ends earlier when Janus reports end of candidates.
+	 */
+	public Duration getHalfTrickleTimeout() {
+		return Duration.ZERO;
+	}
+
+	protected CompletableFuture<T> join(Object key, String displayName, BiFunction<LocalPublisher, LocalSubscriber, T> participationConstructor) {
+		return join(key, displayName, null, participationConstructor);
+	}
+
+	/**
+	 * Joins the meet publishing <code>offer</code> (if not null) in the same request to Janus.
+	 */
+	protected CompletableFuture<T> join(Object key, String displayName, JSEP offer, BiFunction<LocalPublisher, LocalSubscriber, T> participationConstructor) {
+		return janusConnectionPool.getSessionPool()
+				.acquire(key)
+				.thenCompose(pooled -> this.createParticipation(pooled, displayName, offer, participationConstructor)
 						.whenComplete((x, ex1) -> {
 							if (ex1 != null) {
-								session.destroy();
+								pooled.session().destroy();
 							}
 						}));
 	}
 
-	protected CompletableFuture<T> createParticipation(JanusSession session, String displayName, BiFunction<LocalPublisher, LocalSubscriber, T> participationConstructor) {
-		CompletableFuture<LocalPublisher> localPublisherFuture = session.attachPlugin(JanusVideoRoomPlugin.class)
-				.thenCompose(plugin -> plugin.createPublisher(roomId, displayName));
-		CompletableFuture<LocalSubscriber> localSubscriberFuture = session.attachPlugin(JanusVideoRoomPlugin.class)
-				.thenApply(plugin -> plugin.createSubscriber(roomId));
-		return localPublisherFuture.thenCombineAsync(localSubscriberFuture, participationConstructor);
+	protected CompletableFuture<T> createParticipation(JanusSessionPool.PooledSession pooled, String displayName, JSEP offer, BiFunction<LocalPublisher, LocalSubscriber, T> participationConstructor) {
+		LocalSubscriber localSubscriber = pooled.subscriberHandle().createSubscriber(roomId);
+		return pooled.publisherHandle()
+				.createPublisher(roomId, displayName, offer)
+				.thenApplyAsync(localPublisher -> participationConstructor.apply(localPublisher, localSubscriber));
 	}
 
 	public CompletableFuture<Void> destroy() {
-		return janusConnection.createSession()
-				.thenCompose(session -> session.attachPlugin(JanusVideoRoomPlugin.class).thenCompose(plugin -> plugin.destroyRoom(roomId)).whenComplete((x,ex) -> {
-					if (ex != null) {
-						session.destroy();
-					}
-				}))
-				.thenAccept(x -> janusConnection.close());
+		return janusConnectionPool.getConnection(roomId)
+				.thenCompose(connection -> connection.getControlPlugin(JanusVideoRoomPlugin.class))
+				.thenCompose(plugin -> plugin.destroyRoom(roomId));
 	}
 
 	public abstract boolean left(T participation);
 
 	@Override
 	public String toString() {
-		return "AbstractMeet{" + "roomId=" + roomId + ", janusConnection=" + janusConnection + '}';
+		return "AbstractMeet{" + "roomId=" + roomId + ", janusConnectionPool=" + janusConnectionPool + '}';
 	}
 }
@@ -20,14 +20,20 @@ package tigase.meet;
 import tigase.meet.janus.JSEP;
 import tigase.meet.janus.JanusPlugin;
 import tigase.meet.janus.videoroom.JanusVideoRoomPlugin;
+import tigase.meet.janus.videoroom.LastNSelector;
 import tigase.meet.janus.videoroom.LocalPublisher;
 import tigase.meet.janus.videoroom.LocalSubscriber;
 import tigase.meet.janus.videoroom.Publisher;
+import tigase.meet.janus.videoroom.SubscriptionCoalescer;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
+import java.util.function.Predicate;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -38,6 +44,9 @@ public abstract class AbstractParticipation<P extends AbstractParticipation<P,M>
 	private final M meet;
 	protected final LocalPublisher publisher;
 	protected final LocalSubscriber subscriber;
+	private final SubscriptionCoalescer subscriptions;
+	// selects publishers whose video is forwarded, null if video of all publishers is forwarded
+	private final LastNSelector videoSelector;
 
 	/**
 	 * Constructor of the class which stores publisher and subscriber.
@@ -51,6 +60,8 @@ public abstract class AbstractParticipation<P extends AbstractParticipation<P,M>
 		this.meet = meet;
 		this.publisher = localPublisher;
 		this.subscriber = localSubscriber;
+		this.subscriptions = new SubscriptionCoalescer(meet.getSubscriptionUpdateWindow(), localSubscriber::update);
+		this.videoSelector = meet.getLastN() > 0 ? new LastNSelector(meet.getLastN()) : null;
 	}
 
 	public M getMeet() {
@@ -64,16 +75,107 @@ public abstract class AbstractParticipation<P extends AbstractParticipation<P,M>
 
 	@Override
 	public void addedPublishers(Collection<Publisher> publishers) {
-		subscriber.subscribe(publishers.stream()
-									 .flatMap(p -> p.getStreams()
-											 .stream()
-											 .map(s -> new JanusVideoRoomPlugin.Stream(p.getId(), s.getMid())))
-									 .collect(Collectors.toList()));
+		if (videoSelector == null) {
+			subscriptions.subscribe(streamsOf(publishers, type -> true));
+			return;
+		}
+		// audio is forwarded from everyone, video only from selected publishers
+		subscriptions.subscribe(streamsOf(publishers, type -> type != Publisher.Stream.Type.video));
+		for (Publisher publisher : publishers) {
+			if (videoSelector.isSelected(publisher.getId())) {
+				subscriptions.subscribe(videoStreamsOf(publisher.getId()));
+			} else {
+				applyVideoSelection(videoSelector.added(publisher.getId()));
+			}
+		}
 	}
 
 	@Override
 	public void removedPublishers(long publisherId) {
-		subscriber.unsubscribe(publisherId);
+		subscriptions.unsubscribe(publisherId);
+		if (videoSelector != null) {
+			applyVideoSelection(videoSelector.removed(publisherId));
+		}
+	}
+
+	@Override
+	public void publisherTalking(long publisherId, boolean talking) {
+		if (videoSelector != null && talking) {
+			applyVideoSelection(videoSelector.talking(publisherId));
+		}
+	}
+
+	/**
+	 * Forwards video of passed publishers regardless of the recent speakers (if only video of recent speakers is
+	 * forwarded), replacing previously pinned publishers.
+	 */
+	public void setPinned(Collection<Long> publisherIds) {
+		if (videoSelector != null) {
+			applyVideoSelection(videoSelector.setPinned(publisherIds));
+		}
+	}
+
+	public CompletableFuture<Void> configurePublisherBitrate(long bitrate) {
+		return publisher.configureBitrate(bitrate);
+	}
+
+	/**
+	 * Selects layers of video streams forwarded to the participant.
+	 */
+	public CompletableFuture<Void> configureLayers(List<LocalSubscriber.StreamLayers> layers) {
+		return subscriber.configureLayers(layers);
+	}
+
+	private void applyVideoSelection(LastNSelector.Changes changes) {
+		Iterator<Long> added = changes.added().iterator();
+		for (long removedId : changes.removed()) {
+			if (added.hasNext()) {
+				switchVideo(removedId, added.next());
+			} else {
+				subscriptions.unsubscribe(videoStreamsOf(removedId));
+			}
+		}
+		added.forEachRemaining(addedId -> subscriptions.subscribe(videoStreamsOf(addedId)));
+	}
+
+	private void switchVideo(long fromId, long toId) {
+		List<JanusVideoRoomPlugin.Stream> to = videoStreamsOf(toId);
+		subscriber.switchVideo(fromId, to).whenComplete((switched, ex) -> {
+			if (ex != null) {
+				// video is not subscribed yet or switch failed, so we need to renegotiate
+				subscriptions.unsubscribe(videoStreamsOf(fromId));
+				subscriptions.subscribe(to);
+			} else {
+				subscriptions.switched(switched.stream().map(LocalSubscriber.SwitchedStream::from).collect(Collectors.toList()),
+									   switched.stream().map(LocalSubscriber.SwitchedStream::to).collect(Collectors.toList()));
+				switchedVideo(toId, switched.stream().map(LocalSubscriber.SwitchedStream::mid).collect(Collectors.toList()));
+			}
+		});
+	}
+
+	/**
+	 * Called when streams of the subscriber session with passed mids forward video of the publisher instead of video
+	 * of another publisher, without renegotiation.
+	 */
+	protected void switchedVideo(long publisherId, List<String> mids) {
+	}
+
+	private List<JanusVideoRoomPlugin.Stream> videoStreamsOf(long publisherId) {
+		Publisher publisher = this.publisher.getPublisher(publisherId);
+		if (publisher == null) {
+			return Collections.emptyList();
+		}
+		return streamsOf(List.of(publisher), type -> type == Publisher.Stream.Type.video);
+	}
+
+	private static List<JanusVideoRoomPlugin.Stream> streamsOf(Collection<Publisher> publishers,
+															   Predicate<Publisher.Stream.Type> filter) {
+		return publishers.stream()
+				.flatMap(p -> p.getStreams()
+						.stream()
+						.filter(s -> filter.test(s.getType()))
+						.map(s -> new JanusVideoRoomPlugin.Stream(p.getId(), s.getMid())))
+				.collect(Collectors.toList());
 	}
 	
 	public CompletableFuture<JSEP> sendPublisherSDP(JSEP offer) {
@@ -92,6 +194,14 @@ public abstract class AbstractParticipation<P extends AbstractParticipation<P,M>
 		return this.subscriber.sendCandidate(candidate);
 	}
 
+	public CompletableFuture<Void> sendPublisherCandidates(List<JanusPlugin.Candidate> candidates) {
+		return this.publisher.sendCandidates(candidates);
+	}
+
+	public CompletableFuture<Void> sendSubscriberCandidates(List<JanusPlugin.Candidate> candidates) {
+		return this.subscriber.sendCandidates(candidates);
+	}
+
 	public CompletableFuture<Void> sendSubscriberSDP(JSEP answer) {
 		return subscriber.start(answer).whenComplete((x, ex) -> {
 			if (ex != null) {
@@ -104,6 +214,7 @@ public abstract class AbstractParticipation<P extends AbstractParticipation<P,M>
 		if (ex != null) {
 			log.log(Level.WARNING, ex, () -> "participation " + toString() + " leaving due to error");
 		}
+		subscriptions.close();
 		if (meet.left((P) this)) {
 			return publisher.unpublish()
 					.thenCompose(x -> new CompletableFuture<>().completeOnTimeout(x, 1, TimeUnit.SECONDS))
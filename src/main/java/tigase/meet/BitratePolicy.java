@@ -0,0 +1,78 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Policy capping bitrate of video published by participants depending on number of participants of the meet, so
+ * that total bitrate forwarded by Janus does not grow quadratically with size of the meet.
+ *
+ * Policy is defined by thresholds in form <code>participants=bitrate</code> (bitrate in bits per second), ie.
+ * <code>5=1000000</code> means that in meets with 5 or more participants bitrate is capped at 1 Mbps (until next
+ * threshold is crossed). Bitrate is not capped below the first threshold.
+ */
+public class BitratePolicy {
+
+	public static final BitratePolicy UNLIMITED = new BitratePolicy(new TreeMap<>());
+
+	public static BitratePolicy parse(String[] thresholds) {
+		TreeMap<Integer, Long> bitrates = new TreeMap<>();
+		if (thresholds != null) {
+			for (String threshold : thresholds) {
+				int idx = threshold.indexOf('=');
+				if (idx < 0) {
+					throw new IllegalArgumentException("Invalid bitrate threshold: " + threshold);
+				}
+				int participants = Integer.parseInt(threshold.substring(0, idx).trim());
+				long bitrate = Long.parseLong(threshold.substring(idx + 1).trim());
+				if (participants < 1 || bitrate < 0) {
+					throw new IllegalArgumentException("Invalid bitrate threshold: " + threshold);
+				}
+				bitrates.put(participants, bitrate);
+			}
+		}
+		return new BitratePolicy(bitrates);
+	}
+
+	private final NavigableMap<Integer, Long> bitrates;
+
+	private BitratePolicy(NavigableMap<Integer, Long> bitrates) {
+		this.bitrates = bitrates;
+	}
+
+	/**
+	 * Returns max. bitrate of a publisher in a meet with passed number of participants.
+	 * @return bitrate in bits per second or 0 if not capped
+	 */
+	public long getBitrate(int participants) {
+		Map.Entry<Integer, Long> entry = bitrates.floorEntry(participants);
+		return entry == null ? 0 : entry.getValue();
+	}
+
+	public boolean isUnlimited() {
+		return bitrates.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return "BitratePolicy{" + "bitrates=" + bitrates + '}';
+	}
+}
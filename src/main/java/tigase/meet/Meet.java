@@ -18,19 +18,26 @@
 package tigase.meet;
 
 import tigase.component.exceptions.ComponentException;
-import tigase.meet.janus.JanusConnection;
+import tigase.meet.janus.JSEP;
+import tigase.meet.janus.JanusConnectionPool;
+import tigase.meet.jingle.DescriptorPool;
 import tigase.util.common.TimerTask;
 import tigase.xmpp.Authorization;
 import tigase.xmpp.jid.BareJID;
 import tigase.xmpp.jid.JID;
 
+import java.time.Duration;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class Meet extends AbstractMeet<Participation> {
 
+	private static final Logger log = Logger.getLogger(Meet.class.getCanonicalName());
+
 	public static final BareJID ALLOW_EVERYONE = BareJID.bareJIDInstanceNS("*");
 
 	private Set<BareJID> allowed = new CopyOnWriteArraySet();
@@ -41,19 +48,48 @@ public class Meet extends AbstractMeet<Participation> {
 	private final BareJID jid;
 
 	private TimerTask timeoutTask;
+	// max. bitrate of publishers currently requested from Janus
+	private long publisherBitrate;
+	// all participants use the same codecs, so their descriptors are shared between SDPs of the meet
+	private final DescriptorPool descriptorPool = new DescriptorPool();
 
-	public Meet(MeetRepository repository, JanusConnection janusConnection, Object roomId, BareJID jid) {
-		super(janusConnection, roomId);
+	public Meet(MeetRepository repository, JanusConnectionPool janusConnectionPool, Object roomId, BareJID jid) {
+		super(janusConnectionPool, roomId);
 		this.repository = repository;
 		this.jid = jid;
 
 		this.timeoutTask = this.repository.scheduleJoinTimeoutTask(this);
+		this.publisherBitrate = repository.getBitratePolicy().getBitrate(1);
 	}
 
 	public BareJID getJid() {
 		return jid;
 	}
 
+	public DescriptorPool getDescriptorPool() {
+		return descriptorPool;
+	}
+
+	@Override
+	public int getLastN() {
+		return repository.getLastN();
+	}
+
+	@Override
+	public Duration getSubscriptionUpdateWindow() {
+		return repository.getSubscriptionUpdateWindow();
+	}
+
+	@Override
+	public Duration getCandidateBatchWindow() {
+		return repository.getCandidateBatchWindow();
+	}
+
+	@Override
+	public Duration getHalfTrickleTimeout() {
+		return repository.getHalfTrickleTimeout();
+	}
+
 	public void allow(BareJID jid) {
 		allowed.add(jid);
 	}
@@ -76,13 +112,21 @@ public class Meet extends AbstractMeet<Participation> {
 	}
 
 	public CompletableFuture<Participation> join(JID jid) {
+		return join(jid, null);
+	}
+
+	/**
+	 * Joins the meet and publishes <code>offer</code> (if not null) while joining.
+	 */
+	public CompletableFuture<Participation> join(JID jid, JSEP offer) {
 		if (participationByJid.contains(jid)) {
 		    return CompletableFuture.failedFuture(new ComponentException(Authorization.CONFLICT));
 		}
-		return join(jid.getBareJID().toString(), (publisher, subscriber) -> new Participation(this, jid, publisher, subscriber)).whenComplete((participation, ex) -> {
+		return join(jid, jid.getBareJID().toString(), offer, (publisher, subscriber) -> new Participation(this, jid, publisher, subscriber)).whenComplete((participation, ex) -> {
 			if (ex == null) {
 				this.participationByJid.put(participation.getJid(), participation);
 				this.cancelTimeoutTask();
+				this.updatePublisherBitrate(participation);
 			}
 		});
 	}
@@ -105,6 +149,7 @@ public class Meet extends AbstractMeet<Participation> {
 			destroy();
 			return false;
 		}
+		updatePublisherBitrate(null);
 		return true;
 	}
 
@@ -116,6 +161,31 @@ public class Meet extends AbstractMeet<Participation> {
 		return participationByJid.size();
 	}
 
+	/**
+	 * Caps bitrate of publishers when number of participants crosses a threshold of the bitrate policy.
+	 * @param joined participation which just joined the meet (needs to get current cap) or null
+	 */
+	private void updatePublisherBitrate(Participation joined) {
+		BitratePolicy policy = repository.getBitratePolicy();
+		if (policy.isUnlimited()) {
+			return;
+		}
+		// requests are sent under the lock, so publishers receive caps in the order in which they were calculated
+		synchronized (this) {
+			long bitrate = policy.getBitrate(getParticipantsCount());
+			if (bitrate == publisherBitrate) {
+				// new publisher got room default bitrate, which may not match the current cap
+				if (joined != null && bitrate != policy.getBitrate(1)) {
+					joined.configurePublisherBitrate(bitrate);
+				}
+				return;
+			}
+			publisherBitrate = bitrate;
+			log.log(Level.FINEST, () -> "meet " + jid + " with " + getParticipantsCount() + " participants, setting publishers bitrate to " + bitrate);
+			participationByJid.values().forEach(participation -> participation.configurePublisherBitrate(bitrate));
+		}
+	}
+
 	private synchronized void cancelTimeoutTask() {
 		TimerTask timerTask = this.timeoutTask;
 		this.timeoutTask = null;
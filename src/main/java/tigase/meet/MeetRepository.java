@@ -21,6 +21,8 @@ import tigase.component.exceptions.ComponentException;
 import tigase.kernel.beans.Bean;
 import tigase.kernel.beans.Inject;
 import tigase.kernel.beans.config.ConfigField;
+import tigase.meet.janus.IJanusPlacementStrategy;
+import tigase.meet.janus.JanusConnectionPool;
 import tigase.meet.janus.JanusService;
 import tigase.meet.janus.videoroom.JanusVideoRoomPlugin;
 import tigase.server.AbstractMessageReceiver;
@@ -29,17 +31,25 @@ import tigase.util.common.TimerTask;
 import tigase.xmpp.Authorization;
 import tigase.xmpp.jid.BareJID;
 
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 @Bean(name = "meetRepository", parent = MeetComponent.class, active = true)
 public class MeetRepository implements IMeetRepository {
 
 	private static final Logger log = Logger.getLogger(MeetRepository.class.getCanonicalName());
 	private final ConcurrentHashMap<BareJID, CompletableFuture<Meet>> meets = new ConcurrentHashMap<>();
+	// servers selected for meets which are being created, so concurrent creates do not select the same server
+	private final ConcurrentHashMap<BareJID, JanusConnectionPool> creatingMeets = new ConcurrentHashMap<>();
 
 	@ConfigField(
 			desc = "Bean name"
@@ -47,11 +57,24 @@ public class MeetRepository implements IMeetRepository {
 	private String name;
 	@ConfigField(desc = "Video codec", alias = "video-codec")
 	private String videoCodec;
+	@ConfigField(desc = "Number of most recent speakers whose video is forwarded to each participant (0 - video of all participants)", alias = "last-n")
+	private int lastN = 0;
+	@ConfigField(desc = "Max. bitrate of publishers depending on no. of participants (participants=bitrate)", alias = "bitrate-thresholds")
+	private String[] bitrateThresholds;
+	private BitratePolicy bitratePolicy = BitratePolicy.UNLIMITED;
+	@ConfigField(desc = "Time for which changes of subscribed streams are collected before being sent to Janus", alias = "subscription-update-window")
+	private Duration subscriptionUpdateWindow = Duration.ofMillis(250);
+	@ConfigField(desc = "Time for which ICE candidates of a session are collected before being sent together", alias = "candidate-batch-window")
+	private Duration candidateBatchWindow = Duration.ofMillis(50);
+	@ConfigField(desc = "Max. time for which ICE candidates of Janus are awaited (until Janus reports end of candidates) to be sent within the first Jingle description (0 - disabled)", alias = "half-trickle-timeout")
+	private Duration halfTrickleTimeout = Duration.ZERO;
 
 	@Inject(bean = "service")
 	private AbstractMessageReceiver component;
 	@Inject
 	private JanusService janusService;
+	@Inject
+	private IJanusPlacementStrategy placementStrategy;
 	@Inject(nullAllowed = true)
 	private PresenceCollectorRepository presenceCollectorRepository;
 
@@ -66,6 +89,31 @@ public class MeetRepository implements IMeetRepository {
 		this.name = name;
 	}
 
+	public void setBitrateThresholds(String[] bitrateThresholds) {
+		this.bitratePolicy = BitratePolicy.parse(bitrateThresholds);
+		this.bitrateThresholds = bitrateThresholds;
+	}
+
+	public BitratePolicy getBitratePolicy() {
+		return bitratePolicy;
+	}
+
+	public int getLastN() {
+		return lastN;
+	}
+
+	public Duration getSubscriptionUpdateWindow() {
+		return subscriptionUpdateWindow;
+	}
+
+	public Duration getCandidateBatchWindow() {
+		return candidateBatchWindow;
+	}
+
+	public Duration getHalfTrickleTimeout() {
+		return halfTrickleTimeout;
+	}
+
 	@Override
 	public CompletableFuture<Meet> create(BareJID key, int maxNoOfPublishers) {
 		CompletableFuture<Meet> future = new CompletableFuture<>();
@@ -84,6 +132,8 @@ public class MeetRepository implements IMeetRepository {
 				}
 				future.complete(meet);
 			}
+			// created meet is already counted as a meet of its server
+			creatingMeets.remove(key);
 		});
 				
 		return future;
@@ -153,21 +203,50 @@ public class MeetRepository implements IMeetRepository {
 	}
 	
 	private CompletableFuture<Meet> createMeet(BareJID meetJid, int maxNoOfPublishers) {
-		return janusService.newConnection()
-				.thenCompose(connection -> connection.createSession()
-						.thenCompose(session -> session.attachPlugin(JanusVideoRoomPlugin.class)
-								.thenCompose(videoRoomPlugin -> videoRoomPlugin.createRoom(null, maxNoOfPublishers, videoCodec))
-								.exceptionallyCompose(
-										ex -> session.destroy().handle((x, ex1) -> CompletableFuture.failedFuture(ex))))
-						// we should close this session even it is not connected? or maybe we should store it?
-						.thenApply(roomId -> {
-							log.log(Level.FINEST, () -> "meet " + meetJid  + " was created");
-							return new Meet(this, connection, roomId, meetJid);
-						})
-						.exceptionallyCompose(ex -> {
-							connection.close();
-							return CompletableFuture.failedFuture(ex);
-						}));
+		JanusConnectionPool connectionPool = selectServer(meetJid);
+		if (connectionPool == null) {
+			return CompletableFuture.failedFuture(new ComponentException(Authorization.SERVICE_UNAVAILABLE));
+		}
+		log.log(Level.FINEST, () -> "creating meet " + meetJid + " at " + connectionPool.getUri());
+		return connectionPool.getConnection(meetJid)
+				.thenCompose(connection -> connection.getControlPlugin(JanusVideoRoomPlugin.class))
+				.thenCompose(videoRoomPlugin -> videoRoomPlugin.createRoom(null, maxNoOfPublishers, videoCodec, lastN > 0,
+																		 bitratePolicy.getBitrate(1)))
+				.thenApply(roomId -> {
+					log.log(Level.FINEST, () -> "meet " + meetJid  + " was created");
+					return new Meet(this, connectionPool, roomId, meetJid);
+				});
+	}
+
+	private synchronized JanusConnectionPool selectServer(BareJID meetJid) {
+		List<JanusConnectionPool> servers = janusService.getConnectionPools();
+		if (servers.isEmpty()) {
+			return null;
+		}
+		List<JanusConnectionPool> available = servers.stream()
+				.filter(JanusConnectionPool::isAvailable)
+				.collect(Collectors.toList());
+		if (available.isEmpty()) {
+			// none of servers is available now, let's try any of them to trigger reconnection
+			available = servers;
+		}
+		Map<JanusConnectionPool, List<Meet>> meetsByServer = meets.values()
+				.stream()
+				.filter(future -> future.isDone() && !(future.isCancelled() || future.isCompletedExceptionally()))
+				.map(CompletableFuture::join)
+				.collect(Collectors.groupingBy(Meet::getJanusConnectionPool));
+		Map<JanusConnectionPool, Long> creatingByServer = creatingMeets.values()
+				.stream()
+				.collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+		List<IJanusPlacementStrategy.ServerLoad> loads = available.stream().map(server -> {
+			List<Meet> serverMeets = meetsByServer.getOrDefault(server, Collections.emptyList());
+			int rooms = serverMeets.size() + creatingByServer.getOrDefault(server, 0L).intValue();
+			return new IJanusPlacementStrategy.ServerLoad(server, rooms,
+														  serverMeets.stream().mapToInt(Meet::getParticipantsCount).sum());
+		}).collect(Collectors.toList());
+		JanusConnectionPool selected = placementStrategy.select(loads);
+		creatingMeets.put(meetJid, selected);
+		return selected;
 	}
 
 	protected TimerTask scheduleJoinTimeoutTask(Meet meet) {
@@ -24,17 +24,20 @@ import tigase.meet.janus.videoroom.LocalPublisher;
 import tigase.meet.janus.videoroom.LocalSubscriber;
 import tigase.meet.janus.videoroom.Publisher;
 import tigase.meet.jingle.*;
+import tigase.meet.utils.BatchQueue;
 import tigase.meet.utils.DelayedRunQueue;
 import tigase.xmpp.Authorization;
 import tigase.xmpp.jid.JID;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 public class Participation extends AbstractParticipationWithSession<Participation,Meet> {
 
@@ -56,11 +59,45 @@ public class Participation extends AbstractParticipationWithSession<Participatio
 	private final DelayedRunQueue cachedLocalPublisherCandidatesQueue = new DelayedRunQueue();
 	private final DelayedRunQueue cachedLocalSubscriberCandidatesQueue = new DelayedRunQueue();
 
+	// candidates are sent in batches, in a single transport-info per content and in a single trickle to Janus
+	private final BatchQueue<SessionContent> localPublisherCandidates;
+	private final BatchQueue<SessionContent> localSubscriberCandidates;
+	private final BatchQueue<JanusPlugin.Candidate> remotePublisherCandidates;
+	private final BatchQueue<JanusPlugin.Candidate> remoteSubscriberCandidates;
+
+	// in half-trickle mode candidates received before the first local SDP is sent are collected to be embedded in it,
+	// until Janus reports end of candidates or the timeout passes
+	private final Duration halfTrickleTimeout;
+	private List<JanusPlugin.Candidate> localPublisherCandidatesToEmbed;
+	private List<JanusPlugin.Candidate> localSubscriberCandidatesToEmbed;
+	private final CompletableFuture<Void> localPublisherCandidatesCompleted = new CompletableFuture<>();
+	private final CompletableFuture<Void> localSubscriberCandidatesCompleted = new CompletableFuture<>();
+	private CompletableFuture<Void> localPublisherSDPSent = CompletableFuture.completedFuture(null);
+	private CompletableFuture<Void> localSubscriberSDPSent = CompletableFuture.completedFuture(null);
+
 	private final CopyOnWriteArrayList<Publisher> publishers;
 
 	public Participation(Meet meet, JID jid, LocalPublisher localPublisher, LocalSubscriber localSubscriber) {
 		super(meet, jid, localPublisher, localSubscriber);
 		publishers = new CopyOnWriteArrayList<>();
+		Duration candidateBatchWindow = meet.getCandidateBatchWindow();
+		localPublisherCandidates = new BatchQueue<>(candidateBatchWindow, candidates -> {
+			for (SessionContent candidate : mergeCandidates(candidates)) {
+				listener.receivedPublisherCandidate(candidate.sessionId(), candidate.content());
+			}
+		});
+		localSubscriberCandidates = new BatchQueue<>(candidateBatchWindow, candidates -> {
+			for (SessionContent candidate : mergeCandidates(candidates)) {
+				listener.receivedSubscriberCandidate(candidate.sessionId(), candidate.content());
+			}
+		});
+		remotePublisherCandidates = new BatchQueue<>(candidateBatchWindow, this::sendPublisherCandidates);
+		remoteSubscriberCandidates = new BatchQueue<>(candidateBatchWindow, this::sendSubscriberCandidates);
+		halfTrickleTimeout = meet.getHalfTrickleTimeout();
+		if (halfTrickleTimeout.toMillis() > 0) {
+			localPublisherCandidatesToEmbed = new ArrayList<>();
+			localSubscriberCandidatesToEmbed = new ArrayList<>();
+		}
 	}
 
 	@Override
@@ -79,6 +116,18 @@ public class Participation extends AbstractParticipationWithSession<Participatio
 		super.removedPublishers(publisherId);
 	}
 
+	@Override
+	protected void switchedVideo(long publisherId, List<String> mids) {
+		this.publishers.stream()
+				.filter(publisher -> publisher.getId() == publisherId)
+				.findFirst()
+				.ifPresent(publisher -> this.listener.publisherSwitched(publisher, mids));
+	}
+
+	public Collection<Publisher> getPublishers() {
+		return Collections.unmodifiableList(publishers);
+	}
+
 	public synchronized void terminateSubscriberSession() {
 		getSubscriberSessionId().ifPresent(sessionId -> listener.terminatedSubscriberSession(sessionId));
 		super.terminateSubscriberSession();
@@ -89,6 +138,13 @@ public class Participation extends AbstractParticipationWithSession<Participatio
 		super.terminatePublisherSession();
 	}
 
+	/**
+	 * Converts publisher SDP offer received from the client to JSEP sent to Janus.
+	 */
+	public static JSEP toPublisherOffer(SDP sdpOffer) {
+		return new JSEP(JSEP.Type.offer, sdpOffer.toString("0", Content.Creator.responder, SDP.Direction.incoming));
+	}
+
 	public CompletableFuture<SDP> sendPublisherSDP(String sessionId, ContentAction action, SDP sdpOffer) {
 		if (getPublisherSessionId().filter(sessionId::equals).isEmpty()) {
 			return CompletableFuture.failedFuture(new ComponentException(Authorization.CONFLICT));
@@ -99,22 +155,22 @@ public class Participation extends AbstractParticipationWithSession<Participatio
 		SDP prevSDP = this.remotePublisherSDP == null ? null : remotePublisherSDP.sdp();
 		
 		if (prevSDP == null) {
-			JSEP jsepOffer = new JSEP(JSEP.Type.offer, sdpOffer.toString("0", Content.Creator.responder, SDP.Direction.incoming));
+			JSEP jsepOffer = toPublisherOffer(sdpOffer);
 			this.remotePublisherSDP = new SDPHolder(sdpOffer, jsepOffer);
 			return this.sendPublisherSDP(jsepOffer)
-					.thenApply(jsepAnswer -> new SDPHolder(SDP.from(jsepAnswer.getSdp(), this::getPublisherContentCreatorFor, Content.Creator.responder), jsepAnswer))
+					.thenApply(jsepAnswer -> new SDPHolder(SDP.from(jsepAnswer.getSdp(), this::getPublisherContentCreatorFor, Content.Creator.responder, null, getMeet().getDescriptorPool()), jsepAnswer))
 					.whenComplete((sdpHolder, ex) -> {
 						synchronized (this) {
 							updatePublisherContentCreators(sdpHolder.sdp());
 							this.localPublisherSDP = sdpHolder;
-							cachedLocalPublisherCandidatesQueue.delayFinished();
+							// candidates are released after session-accept is sent by receivedPublisherSDP()
 						}
 					}).thenApply(SDPHolder::sdp);
 		} else {
 			JSEP jsepOffer = new JSEP(JSEP.Type.offer, prevSDP.applyDiff(action, sdpOffer).toString("0", Content.Creator.responder, SDP.Direction.incoming));
 			this.remotePublisherSDP = new SDPHolder(sdpOffer, jsepOffer);
 			return this.sendPublisherSDP(jsepOffer)
-					.thenApply(jsepAnswer -> new SDPHolder(SDP.from(jsepAnswer.getSdp(), this::getPublisherContentCreatorFor, Content.Creator.responder), jsepAnswer))
+					.thenApply(jsepAnswer -> new SDPHolder(SDP.from(jsepAnswer.getSdp(), this::getPublisherContentCreatorFor, Content.Creator.responder, null, getMeet().getDescriptorPool()), jsepAnswer))
 					.whenComplete((sdpHolder, ex) -> {
 						synchronized (this) {
 							updatePublisherContentCreators(sdpHolder.sdp());
@@ -128,36 +184,60 @@ public class Participation extends AbstractParticipationWithSession<Participatio
 	@Override
 	protected synchronized void receivedPublisherSDP(String sessionId, JSEP jsep) {
 		SDP prevSDP = this.localPublisherSDP == null ? null : this.localPublisherSDP.sdp();
-		SDP currentSDP = SDP.from(jsep.getSdp(), this::getPublisherContentCreatorFor, Content.Creator.responder);
+		SDP currentSDP = SDP.from(jsep.getSdp(), this::getPublisherContentCreatorFor, Content.Creator.responder, prevSDP, getMeet().getDescriptorPool());
 		updatePublisherContentCreators(currentSDP);
 		this.localPublisherSDP = new SDPHolder(currentSDP, jsep);
 		if (prevSDP == null) {
-			listener.receivedPublisherSDP(sessionId, ContentAction.init, currentSDP);
-			cachedLocalPublisherCandidatesQueue.delayFinished();
+			localPublisherSDPSent = withEmbeddedCandidates(localPublisherSDP, localPublisherCandidatesCompleted, () -> {
+				synchronized (this) {
+					List<JanusPlugin.Candidate> candidates = localPublisherCandidatesToEmbed;
+					localPublisherCandidatesToEmbed = null;
+					return candidates;
+				}
+			}).thenAccept(sdp -> {
+				listener.receivedPublisherSDP(sessionId, ContentAction.init, sdp);
+				cachedLocalPublisherCandidatesQueue.delayFinished();
+			}).exceptionally(this::publisherSDPNotificationFailed);
 		} else {
-			// we need to calculate and post notifications
+			// we need to calculate and post notifications (after the initial SDP is sent)
 			Map<ContentAction, SDP> results = currentSDP.diffFrom(prevSDP);
-			for (ContentAction action : ContentAction.values()) {
-				SDP sdp = results.get(action);
-				if (sdp != null) {
-					listener.receivedPublisherSDP(sessionId, action, sdp);
+			localPublisherSDPSent = localPublisherSDPSent.thenRun(() -> {
+				for (ContentAction action : ContentAction.values()) {
+					SDP sdp = results.get(action);
+					if (sdp != null) {
+						listener.receivedPublisherSDP(sessionId, action, sdp);
+					}
 				}
-			}
+			}).exceptionally(this::publisherSDPNotificationFailed);
 		}
 	}
 
+	private Void publisherSDPNotificationFailed(Throwable ex) {
+		log.log(Level.WARNING, ex, () -> "failed to notify " + getJid() + " about publisher SDP");
+		return null;
+	}
+
 	@Override
 	protected synchronized void receivedPublisherCandidate(String sessionId, JanusPlugin.Candidate candidate) {
+		if (localPublisherCandidatesToEmbed != null) {
+			localPublisherCandidatesToEmbed.add(candidate);
+			return;
+		}
 		cachedLocalPublisherCandidatesQueue.offer(() -> {
-			Content content = convertCandidateToContent(Content.Creator.initiator, localPublisherSDP.sdp(), candidate);
+			Content content = convertCandidateToContent(Content.Creator.initiator, localPublisherSDP, candidate);
 			if (content != null) {
-				listener.receivedPublisherCandidate(sessionId, content);
+				localPublisherCandidates.offer(new SessionContent(sessionId, content));
 			} else {
 				log.log(Level.WARNING, () ->"ERROR: it was not possible to convert publisher JanusPlugin.Candidate to Candidate, " + candidate);
 			}
 		});
 	}
 
+	@Override
+	public void receivedPublisherCandidatesCompleted() {
+		localPublisherCandidatesCompleted.complete(null);
+	}
+
 	public CompletableFuture<Void> sendSubscriberSDP(String sessionId, ContentAction action, SDP sdpAnswer) {
 		if (getSubscriberSessionId().filter(sessionId::equals).isEmpty()) {
 			return CompletableFuture.failedFuture(new ComponentException(Authorization.CONFLICT));
@@ -181,33 +261,59 @@ public class Participation extends AbstractParticipationWithSession<Participatio
 	@Override
 	protected void receivedSubscriberSDP(String sessionId, JSEP jsep) {
 		SDP prevSDP = this.localSubscriberSDP == null ? null : this.localSubscriberSDP.sdp();
-		SDP currentSDP = SDP.from(jsep.getSdp(), this::getSubscriberContentCreatorFor, Content.Creator.initiator);
+		SDP currentSDP = SDP.from(jsep.getSdp(), this::getSubscriberContentCreatorFor, Content.Creator.initiator, prevSDP, getMeet().getDescriptorPool());
 		updateSubscriberContentCreators(currentSDP);
 		this.localSubscriberSDP = new SDPHolder(currentSDP, jsep);
 		if (prevSDP == null) {
-			listener.receivedSubscriberSDP(sessionId, ContentAction.init, currentSDP);
-			cachedLocalSubscriberCandidatesQueue.delayFinished();
+			localSubscriberSDPSent = withEmbeddedCandidates(localSubscriberSDP, localSubscriberCandidatesCompleted, () -> {
+				synchronized (this) {
+					List<JanusPlugin.Candidate> candidates = localSubscriberCandidatesToEmbed;
+					localSubscriberCandidatesToEmbed = null;
+					return candidates;
+				}
+			}).thenAccept(sdp -> {
+				listener.receivedSubscriberSDP(sessionId, ContentAction.init, sdp);
+				cachedLocalSubscriberCandidatesQueue.delayFinished();
+			}).exceptionally(this::subscriberSDPNotificationFailed);
 		} else {
-			// we need to calculate and post notifications
+			// we need to calculate and post notifications (after the initial SDP is sent)
 			Map<ContentAction, SDP> results = currentSDP.diffFrom(prevSDP);
-			for (ContentAction action : ContentAction.values()) {
-				SDP sdp = results.get(action);
-				if (sdp != null) {
-					listener.receivedSubscriberSDP(sessionId, action, sdp);
-					if (action == ContentAction.modify)  {
-						sendSubscriberSDP(remoteSubscriberSDP.jsep);
+			localSubscriberSDPSent = localSubscriberSDPSent.thenRun(() -> {
+				for (ContentAction action : ContentAction.values()) {
+					SDP sdp = results.get(action);
+					if (sdp != null) {
+						listener.receivedSubscriberSDP(sessionId, action, sdp);
+						if (action == ContentAction.modify)  {
+							sendSubscriberSDP(remoteSubscriberSDP.jsep);
+						}
 					}
 				}
-			}
+			}).exceptionally(this::subscriberSDPNotificationFailed);
 		}
 	}
 
+	private Void subscriberSDPNotificationFailed(Throwable ex) {
+		log.log(Level.WARNING, ex, () -> "failed to notify " + getJid() + " about subscriber SDP");
+		return null;
+	}
+
+	@Override
+	public void receivedSubscriberCandidatesCompleted() {
+		localSubscriberCandidatesCompleted.complete(null);
+	}
+
 	@Override
 	protected void receivedSubscriberCandidate(String sessionId, JanusPlugin.Candidate candidate) {
+		synchronized (this) {
+			if (localSubscriberCandidatesToEmbed != null) {
+				localSubscriberCandidatesToEmbed.add(candidate);
+				return;
+			}
+		}
 		cachedLocalSubscriberCandidatesQueue.offer(() -> {
-			Content content = convertCandidateToContent(Content.Creator.initiator, localSubscriberSDP.sdp(), candidate);
+			Content content = convertCandidateToContent(Content.Creator.initiator, localSubscriberSDP, candidate);
 			if (content != null) {
-				listener.receivedSubscriberCandidate(sessionId, content);
+				localSubscriberCandidates.offer(new SessionContent(sessionId, content));
 			} else {
 				log.log(Level.WARNING, "ERROR: it was not possible to convert subscriber JanusPlugin.Candidate to Candidate, " + candidate);
 			}
@@ -226,14 +332,14 @@ public class Participation extends AbstractParticipationWithSession<Participatio
 	}
 
 	public void sendPublisherCandidate(String contentName, Candidate candidate) {
-		sendPublisherCandidate(
-				new JanusPlugin.Candidate(contentName, findSdpMLineIndex(remotePublisherSDP.jsep(), contentName),
+		remotePublisherCandidates.offer(
+				new JanusPlugin.Candidate(contentName, findSdpMLineIndex(remotePublisherSDP, contentName),
 										  candidate.toSDP()));
 	}
 
 	public void sendSubscriberCandidate(String contentName, Candidate candidate) {
-		sendSubscriberCandidate(
-				new JanusPlugin.Candidate(contentName, findSdpMLineIndex(remoteSubscriberSDP.jsep(), contentName),
+		remoteSubscriberCandidates.offer(
+				new JanusPlugin.Candidate(contentName, findSdpMLineIndex(remoteSubscriberSDP, contentName),
 										  candidate.toSDP()));
 	}
 
@@ -248,11 +354,8 @@ public class Participation extends AbstractParticipationWithSession<Participatio
 	}
 
 
-	protected int findSdpMLineIndex(JSEP jsep, String contentName) {
-		String[] lines = jsep.getSdp().split("\r\n");
-		List<String> contents = Arrays.stream(lines).filter(it -> it.startsWith("a=mid:")).collect(Collectors.toList());
-
-		int idx = contents.indexOf("a=mid:" + contentName);
+	protected int findSdpMLineIndex(SDPHolder sdpHolder, String contentName) {
+		int idx = sdpHolder.getMLineIndex(contentName);
 		if (idx == -1) {
 			log.log(Level.WARNING,
 					"content '" + contentName + "' was not found in " + this.getMeet().getJid() + " SDP sent to " +
@@ -268,8 +371,8 @@ public class Participation extends AbstractParticipationWithSession<Participatio
 		setListeners();
 	}
 
-	protected Content convertCandidateToContent(Content.Creator role, SDP sdp, JanusPlugin.Candidate janusCandidate) {
-		if (sdp == null) {
+	protected Content convertCandidateToContent(Content.Creator role, SDPHolder sdpHolder, JanusPlugin.Candidate janusCandidate) {
+		if (sdpHolder == null || sdpHolder.sdp() == null) {
 			return null;
 		}
 		Candidate candidate = Candidate.from(janusCandidate.getCandidate());
@@ -277,22 +380,77 @@ public class Participation extends AbstractParticipationWithSession<Participatio
 			return null;
 		}
 
-		String mid = Optional.ofNullable(janusCandidate.getMid())
-				.or(() -> sdp.getContents().stream().map(Content::getName).findFirst())
-				.get();
-		Optional<Transport> transport = sdp.getContents()
-				.stream()
-				.filter(c -> mid.equals(c.getName()))
-				.findFirst()
-				.flatMap(it -> it.getTransports().stream().findFirst());
-
-		if (transport.isEmpty()) {
+		String mid = janusCandidate.getMid() != null ? janusCandidate.getMid() : sdpHolder.getFirstContentName();
+		Transport transport = mid == null ? null : sdpHolder.transports().get(mid);
+		if (transport == null) {
 			return null;
 		}
 
 		return new Content(role, mid, Optional.empty(), Optional.empty(),
-						   List.of(new Transport(transport.get().getUfrag(), transport.get().getPwd(),
-												 List.of(candidate), Optional.empty())));
+						   List.of(new Transport(transport.getUfrag(), transport.getPwd(), List.of(candidate),
+												 Optional.empty())));
+	}
+
+	/**
+	 * Returns SDP with candidates collected in half-trickle mode embedded in transports of its contents. SDP is
+	 * returned when <code>completed</code> is completed by Janus reporting end of candidates, but not later than after
+	 * the configured timeout, or immediately if half-trickle mode is disabled.
+	 */
+	protected CompletableFuture<SDP> withEmbeddedCandidates(SDPHolder sdpHolder, CompletableFuture<Void> completed,
+															Supplier<List<JanusPlugin.Candidate>> collected) {
+		if (halfTrickleTimeout.toMillis() <= 0) {
+			return CompletableFuture.completedFuture(sdpHolder.sdp());
+		}
+		return completed.completeOnTimeout(null, halfTrickleTimeout.toMillis(), TimeUnit.MILLISECONDS).thenApplyAsync(x -> {
+			List<JanusPlugin.Candidate> candidates = collected.get();
+			if (candidates == null || candidates.isEmpty()) {
+				return sdpHolder.sdp();
+			}
+			Map<String,List<Candidate>> contentCandidates = new HashMap<>();
+			for (JanusPlugin.Candidate candidate : candidates) {
+				Content content = convertCandidateToContent(Content.Creator.initiator, sdpHolder, candidate);
+				if (content != null) {
+					contentCandidates.computeIfAbsent(content.getName(), name -> new ArrayList<>())
+							.addAll(content.getTransports().get(0).getCandidates());
+				} else {
+					log.log(Level.WARNING, () -> "ERROR: it was not possible to convert JanusPlugin.Candidate to Candidate, " + candidate);
+				}
+			}
+			return sdpHolder.sdp().withCandidates(contentCandidates);
+		});
+	}
+
+	/**
+	 * Merges candidates of the same content of the same session into a single content.
+	 */
+	protected static List<SessionContent> mergeCandidates(List<SessionContent> candidates) {
+		if (candidates.size() == 1) {
+			return candidates;
+		}
+		Map<List<String>,List<SessionContent>> grouped = new LinkedHashMap<>();
+		for (SessionContent candidate : candidates) {
+			grouped.computeIfAbsent(List.of(candidate.sessionId(), candidate.content().getName()),
+									key -> new ArrayList<>()).add(candidate);
+		}
+		List<SessionContent> merged = new ArrayList<>(grouped.size());
+		for (List<SessionContent> group : grouped.values()) {
+			SessionContent first = group.get(0);
+			if (group.size() == 1) {
+				merged.add(first);
+				continue;
+			}
+			Transport transport = first.content().getTransports().get(0);
+			List<Candidate> list = new ArrayList<>();
+			for (SessionContent candidate : group) {
+				list.addAll(candidate.content().getTransports().get(0).getCandidates());
+			}
+			merged.add(new SessionContent(first.sessionId(),
+										  new Content(first.content().getCreator(), first.content().getName(),
+													  Optional.empty(), Optional.empty(),
+													  List.of(new Transport(transport.getUfrag(), transport.getPwd(),
+																			list, Optional.empty())))));
+		}
+		return merged;
 	}
 
 	protected Content.Creator getPublisherContentCreatorFor(String name) {
@@ -323,6 +481,12 @@ public class Participation extends AbstractParticipationWithSession<Participatio
 
 		void publishersLeft(Collection<Publisher> left);
 
+		/**
+		 * Called when contents of the subscriber session with passed mids carry video of the publisher instead of
+		 * video of another publisher.
+		 */
+		void publisherSwitched(Publisher publisher, List<String> mids);
+
 		void receivedPublisherSDP(String sessionId, ContentAction action, SDP sdp);
 
 		void receivedPublisherCandidate(String sessionId, Content content);
@@ -337,7 +501,55 @@ public class Participation extends AbstractParticipationWithSession<Participatio
 		
 	}
 
-	public record SDPHolder(SDP sdp, JSEP jsep) {
+	protected record SessionContent(String sessionId, Content content) {
 
 	}
+
+	/**
+	 * Holds parsed SDP with its JSEP and data required to forward ICE candidates, so forwarding of every candidate does
+	 * not need to scan SDP again.
+	 *
+	 * @param mLineIndexes index of m-line for each <code>mid</code> in SDP of the JSEP
+	 * @param transports first transport of each content of the parsed SDP
+	 */
+	public record SDPHolder(SDP sdp, JSEP jsep, Map<String,Integer> mLineIndexes, Map<String,Transport> transports) {
+
+		public SDPHolder(SDP sdp, JSEP jsep) {
+			this(sdp, jsep, indexMLines(jsep.getSdp()), indexTransports(sdp));
+		}
+
+		public int getMLineIndex(String mid) {
+			return mLineIndexes.getOrDefault(mid, -1);
+		}
+
+		public String getFirstContentName() {
+			return transports.isEmpty() ? null : transports.keySet().iterator().next();
+		}
+
+		private static Map<String,Integer> indexMLines(String sdp) {
+			Map<String,Integer> indexes = new HashMap<>();
+			int mLineIndex = 0;
+			int idx = sdp.startsWith("a=mid:") ? 0 : sdp.indexOf("\na=mid:");
+			while (idx >= 0) {
+				int start = sdp.indexOf(':', idx) + 1;
+				int end = sdp.indexOf('\r', start);
+				indexes.putIfAbsent(sdp.substring(start, end < 0 ? sdp.length() : end), mLineIndex++);
+				idx = sdp.indexOf("\na=mid:", start);
+			}
+			return Collections.unmodifiableMap(indexes);
+		}
+
+		private static Map<String,Transport> indexTransports(SDP sdp) {
+			if (sdp == null) {
+				return Collections.emptyMap();
+			}
+			Map<String,Transport> transports = new LinkedHashMap<>();
+			for (Content content : sdp.getContents()) {
+				if (!content.getTransports().isEmpty()) {
+					transports.putIfAbsent(content.getName(), content.getTransports().get(0));
+				}
+			}
+			return Collections.unmodifiableMap(transports);
+		}
+	}
 }
@@ -55,6 +55,11 @@ public class ParticipationWithListener extends AbstractParticipation<Participati
 	public void receivedPublisherCandidate(JanusPlugin.Candidate candidate) {
 		listener.receivedPublisherCandidate(candidate);
 	}
+
+	@Override
+	public void receivedPublisherCandidatesCompleted() {
+		listener.receivedPublisherCandidatesCompleted();
+	}
 	
 	public void setListener(Listener listener) {
 		this.listener = listener;
@@ -70,6 +75,11 @@ public class ParticipationWithListener extends AbstractParticipation<Participati
 	public void receivedSubscriberCandidate(JanusPlugin.Candidate candidate) {
 		listener.receivedSubscriberCandidate(candidate);
 	}
+
+	@Override
+	public void receivedSubscriberCandidatesCompleted() {
+		listener.receivedSubscriberCandidatesCompleted();
+	}
 	
 	public interface Listener {
 
@@ -78,9 +88,13 @@ public class ParticipationWithListener extends AbstractParticipation<Participati
 
 		void receivedPublisherCandidate(JanusPlugin.Candidate candidate);
 
+		void receivedPublisherCandidatesCompleted();
+
 		void receivedSubscriberSDP(JSEP jsep);
 
 		void receivedSubscriberCandidate(JanusPlugin.Candidate candidate);
 
+		void receivedSubscriberCandidatesCompleted();
+
 	}
 }
@@ -0,0 +1,50 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet.janus;
+
+import java.util.List;
+
+/**
+ * Strategy selecting Janus server on which a new meet should be created.
+ */
+public interface IJanusPlacementStrategy {
+
+	/**
+	 * Selects server for a new room.
+	 * @param servers current load of available servers (never empty)
+	 * @return connection pool of the selected server
+	 */
+	JanusConnectionPool select(List<ServerLoad> servers);
+
+	/**
+	 * Load of a server.
+	 * @param rooms number of rooms on the server, including rooms being created
+	 * @param participants number of participants of the rooms on the server
+	 */
+	record ServerLoad(JanusConnectionPool server, int rooms, int participants) {
+
+		public int handles() {
+			return server.getHandlesCount();
+		}
+
+		public long roundTripTime() {
+			return server.getRoundTripTime();
+		}
+
+	}
+}
@@ -24,8 +24,14 @@ import java.util.Map;
 
 public class JSEP {
 
-	public static JSEP fromData(Map<String, Object> data) {
-		Map<String, Object> jsep = (Map<String, Object>) data.get("jsep");
+	public static JSEP fromRaw(JanusMessage.RawJson json) {
+		if (json == null) {
+			return null;
+		}
+		return fromMap(json.decode());
+	}
+
+	public static JSEP fromMap(Map<String, Object> jsep) {
 		if (jsep == null) {
 			return null;
 		}
@@ -53,6 +59,10 @@ public class JSEP {
 		return type;
 	}
 
+	public boolean isSameAs(JSEP jsep) {
+		return jsep != null && type == jsep.type && sdp.equals(jsep.sdp);
+	}
+
 	public void write(JsonGenerator generator) throws IOException {
 		generator.writeFieldName("jsep");
 		generator.writeStartObject();
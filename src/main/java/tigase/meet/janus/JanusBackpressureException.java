@@ -0,0 +1,29 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet.janus;
+
+/**
+ * Thrown when request was not sent to Janus as too many requests are already waiting to be sent.
+ */
+public class JanusBackpressureException extends RuntimeException {
+
+	public JanusBackpressureException(String message) {
+		super(message);
+	}
+
+}
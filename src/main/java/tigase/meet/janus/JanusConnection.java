@@ -19,59 +19,86 @@ package tigase.meet.janus;
 
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
-import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.core.JsonToken;
+import tigase.meet.utils.StripedExecutor;
+import tigase.meet.utils.TimingWheel;
 
 import java.io.IOException;
 import java.io.StringWriter;
-import java.net.http.WebSocket;
 import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-public class JanusConnection implements WebSocket.Listener {
+public class JanusConnection implements JanusTransport.Listener {
 
 	private static final Logger log = Logger.getLogger(JanusConnection.class.getCanonicalName());
 	private static final JsonFactory jsonFactory = new JsonFactory();
+	private static final Duration KEEP_ALIVE_TICK = Duration.ofSeconds(1);
 
 	private final String id = UUID.randomUUID().toString();
-	private WebSocket webSocket;
-	private StringBuilder sb = new StringBuilder();
-	private ConcurrentHashMap<String, CompletableFuture<Void>> sendTransactions = new ConcurrentHashMap<>();
-	private ConcurrentHashMap<String, CompletableFuture<Map<String,Object>>> executeTransactions = new ConcurrentHashMap<>();
+	private JanusTransport transport;
+	private volatile boolean connected = false;
+	private volatile long roundTripTime = -1;
+	private final JanusTransactions transactions;
 	private ConcurrentHashMap<Long, JanusSession> activeSessions = new ConcurrentHashMap<>();
+	// long-lived session with handles used for requests not related to any participant
+	private CompletableFuture<JanusSession> controlSession;
+	private final Map<Class<? extends JanusPlugin>, CompletableFuture<? extends JanusPlugin>> controlPlugins = new HashMap<>();
+
+	private final ArrayDeque<OutgoingFrame> sendQueue = new ArrayDeque<>();
+	private boolean sending = false;
+	private boolean throttled = false;
 
-	private final ExecutorService executor = Executors.newSingleThreadExecutor();
 	private final JanusPluginsRegister pluginsRegister;
 	private final ScheduledExecutorService executorService;
-	private final Duration sessionTimeout;
+	private final StripedExecutor dispatcher;
+	private final Settings settings;
+	private final TimingWheel keepAliveWheel = new TimingWheel(KEEP_ALIVE_TICK, 64);
+	private ScheduledFuture<?> keepAliveTask;
 
-	public JanusConnection(JanusPluginsRegister pluginsRegister, ScheduledExecutorService executorService, Duration sessionTimeout) {
+	public JanusConnection(JanusPluginsRegister pluginsRegister, ScheduledExecutorService executorService,
+						   TimingWheel timingWheel, StripedExecutor dispatcher, Settings settings) {
 		this.pluginsRegister = pluginsRegister;
 		this.executorService = executorService;
-		this.sessionTimeout = sessionTimeout;
+		this.dispatcher = dispatcher;
+		this.settings = settings;
+		this.transactions = new JanusTransactions(logPrefix(), timingWheel);
 	}
 
 	public void close() {
+		if (!connected) {
+			return;
+		}
+		connected = false;
+		stopKeepAlive();
 		CompletableFuture.allOf(activeSessions.values().stream().map(session -> session.destroy()).toArray(CompletableFuture[]::new)).handle( (x, ex) -> {
-			return withContext(webSocket -> webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "ok"));
+			return enqueue(new OutgoingFrame(null, new CompletableFuture<>()));
 		});
 	}
 
+	public boolean isConnected() {
+		return connected;
+	}
+
 	public String getId() {
 		return id;
 	}
 
 	public String nextTransactionId() {
-		return UUID.randomUUID().toString();
+		return transactions.nextId();
+	}
+
+	public JanusTransactions getTransactions() {
+		return transactions;
 	}
 
-	protected void setWebSocket(WebSocket webSocket) {
-		this.webSocket = webSocket;
+	protected void setTransport(JanusTransport transport) {
+		this.transport = transport;
+		this.connected = true;
+		this.keepAliveTask = executorService.scheduleAtFixedRate(keepAliveWheel::advance, KEEP_ALIVE_TICK.toMillis(),
+																 KEEP_ALIVE_TICK.toMillis(), TimeUnit.MILLISECONDS);
 	}
 
 	public String logPrefix(String transaction) {
@@ -83,7 +110,7 @@ public class JanusConnection implements WebSocket.Listener {
 		log.log(Level.FINER, () -> this.logPrefix(transaction) + ", creating session..");
 		CompletableFuture<JanusSession> future = new CompletableFuture<>();
 		execute("create", transaction, generator -> {
-		}).thenApply(data -> new JanusSession(this, (Map<String, Object>) data.get("data")))
+		}).thenApply(message -> new JanusSession(this, ((JanusMessage.Success) message).id()))
 				.whenComplete((session, ex) -> {
 					if (ex != null) {
 						log.log(Level.WARNING, ex,
@@ -92,17 +119,47 @@ public class JanusConnection implements WebSocket.Listener {
 					} else {
 						this.activeSessions.put(session.getSessionId(), session);
 						log.log(Level.FINER, () -> session.logPrefix(transaction) + " session created.");
-						session.scheduleKeepAlive(executorService, sessionTimeout);
+						scheduleKeepAlive(session, getKeepAliveInterval());
 						future.complete(session);
 					}
 				});
 		return future;
 	}
 
+	/**
+	 * Returns handle of the plugin attached to the control session of this connection. Control session and its
+	 * handles are created on first use and are kept until the connection is closed, so requests not related to any
+	 * participant (ie. creation or destruction of rooms) do not need to create a new session and handle.
+	 */
+	public synchronized <T extends JanusPlugin> CompletableFuture<T> getControlPlugin(Class<T> pluginClass) {
+		if (controlSession == null || isFailed(controlSession) || (controlSession.isDone() &&
+				!activeSessions.containsKey(controlSession.join().getSessionId()))) {
+			log.log(Level.FINER, () -> logPrefix() + ", creating control session..");
+			controlSession = createSession();
+			controlPlugins.clear();
+		}
+		CompletableFuture<? extends JanusPlugin> future = controlPlugins.get(pluginClass);
+		if (future == null || isFailed(future)) {
+			future = controlSession.thenCompose(session -> session.attachPlugin(pluginClass));
+			controlPlugins.put(pluginClass, future);
+		}
+		return (CompletableFuture<T>) future;
+	}
+
+	private static boolean isFailed(CompletableFuture<?> future) {
+		return future.isCompletedExceptionally() || future.isCancelled();
+	}
+
 	public CompletableFuture<Void> destroySession(JanusSession session) {
 		String transaction = nextTransactionId();
 		log.log(Level.FINER, () -> session.logPrefix(transaction) + " destroying ..");
-		if (activeSessions.remove(session.getSessionId()) == null) {
+		// session is removed before keepalive is cancelled, so keepalive check running now will not send or reschedule it
+		boolean active;
+		synchronized (session) {
+			active = activeSessions.remove(session.getSessionId()) != null;
+			session.cancelKeepAlive();
+		}
+		if (!active) {
 			return CompletableFuture.completedFuture(null);
 		}
 		return execute("destroy", transaction, generator -> {
@@ -125,69 +182,191 @@ public class JanusConnection implements WebSocket.Listener {
 		}).thenApply(x -> null);
 	}
 
+	/**
+	 * Returns max. time of inactivity of a session after which keepalive is sent for it.
+	 */
+	public Duration getKeepAliveInterval() {
+		Duration interval = settings.sessionTimeout().minusSeconds(5);
+		return interval.compareTo(KEEP_ALIVE_TICK) > 0 ? interval : settings.sessionTimeout().dividedBy(2);
+	}
+
+	private void scheduleKeepAlive(JanusSession session, Duration delay) {
+		if (activeSessions.containsKey(session.getSessionId())) {
+			session.setKeepAliveTimeout(keepAliveWheel.schedule(delay, () -> checkKeepAlive(session)));
+		}
+	}
+
+	private void checkKeepAlive(JanusSession session) {
+		synchronized (session) {
+			if (!activeSessions.containsKey(session.getSessionId())) {
+				// session is being destroyed
+				return;
+			}
+			long interval = getKeepAliveInterval().toNanos();
+			long idle = System.nanoTime() - session.getLastActivity();
+			// keepalive is sent only if the session would be idle for too long before the next check
+			if (idle + KEEP_ALIVE_TICK.toNanos() >= interval) {
+				log.log(Level.FINEST, () -> session.logPrefix() + ", sending keepalive..");
+				session.keepAlive();
+				scheduleKeepAlive(session, getKeepAliveInterval());
+			} else {
+				scheduleKeepAlive(session, Duration.ofNanos(interval - idle));
+			}
+		}
+	}
+
 	public String getPluginId(Class<? extends JanusPlugin> plugin) {
 		return pluginsRegister.getPluginId(plugin);
 	}
 
-	public CompletableFuture<Map<String,Object>> getInfo() {
+	public CompletableFuture<JanusMessage> getInfo() {
 		return execute("info", nextTransactionId(), generator -> {});
 	}
 
-	public CompletableFuture<Map<String,Object>> execute(String janus, String transaction, RequestGenerator requestGenerator) {
-		CompletableFuture<Map<String,Object>> future = new CompletableFuture<Map<String,Object>>().whenComplete((result, ex) -> executeTransactions.remove(transaction));
-		try {
-			executeTransactions.put(transaction, future);
-			sendInternal(janus, transaction, requestGenerator);
-		} catch (IOException|ExecutionException|InterruptedException ex) {
-			executeTransactions.remove(transaction);
-			future.completeExceptionally(ex);
-		}
+	public int getHandlesCount() {
+		return activeSessions.values().stream().mapToInt(JanusSession::getAttachedPluginsCount).sum();
+	}
+
+	/**
+	 * Returns smoothed round trip time of requests executed over this connection.
+	 * @return round trip time in nanoseconds or -1 if not measured yet
+	 */
+	public long getRoundTripTime() {
+		return roundTripTime;
+	}
+
+	private synchronized void updateRoundTripTime(long sample) {
+		long current = roundTripTime;
+		roundTripTime = current < 0 ? sample : ((current * 7) + sample) / 8;
+	}
+
+	public CompletableFuture<JanusMessage> execute(String janus, String transaction, RequestGenerator requestGenerator) {
+		long startTime = System.nanoTime();
+		CompletableFuture<JanusMessage> future = transactions.registerExecute(transaction, janus,
+																					 settings.timeoutFor(janus));
+		future.thenRun(() -> updateRoundTripTime(System.nanoTime() - startTime));
+		sendInternal(janus, transaction, requestGenerator).whenComplete((x, ex) -> {
+			if (ex != null) {
+				transactions.completeExceptionally(transaction, ex);
+			}
+		});
 		return future;
 	}
 
 	public CompletableFuture<Void> send(String janus, String transaction, RequestGenerator requestGenerator) {
-		CompletableFuture<Void> future = new CompletableFuture<Void>().whenComplete((result, ex) -> sendTransactions.remove(transaction));
-		try {
-			sendTransactions.put(transaction, future);
-			sendInternal(janus, transaction, requestGenerator);
-		} catch (IOException|ExecutionException|InterruptedException ex) {
-			future.completeExceptionally(ex);
-		}
+		CompletableFuture<Void> future = transactions.registerSend(transaction, janus, settings.timeoutFor(janus));
+		sendInternal(janus, transaction, requestGenerator).whenComplete((x, ex) -> {
+			if (ex != null) {
+				transactions.completeExceptionally(transaction, ex);
+			}
+		});
 		return future;
 	}
 
-	private void sendInternal(String janus, String transaction, RequestGenerator requestGenerator) throws IOException, ExecutionException, InterruptedException {
-		StringWriter w = new StringWriter();
-		JsonGenerator generator = jsonFactory.createGenerator(w);
-		generator.writeStartObject();
-		generator.writeStringField("janus", janus);
-		generator.writeStringField("transaction", transaction);
-		requestGenerator.accept(generator);
-		generator.writeEndObject();
-		generator.close();
-		String str = w.toString();
+	private CompletableFuture<Void> sendInternal(String janus, String transaction, RequestGenerator requestGenerator) {
+		String str;
+		try {
+			StringWriter w = new StringWriter();
+			JsonGenerator generator = jsonFactory.createGenerator(w);
+			generator.writeStartObject();
+			generator.writeStringField("janus", janus);
+			generator.writeStringField("transaction", transaction);
+			requestGenerator.accept(generator);
+			generator.writeEndObject();
+			generator.close();
+			str = w.toString();
+		} catch (IOException ex) {
+			return CompletableFuture.failedFuture(ex);
+		}
 		log.log(Level.FINEST, () -> logPrefix() + ", sending request: " + str);
-		withContext(webSocket -> {
-			return webSocket.sendText(str, true);
-		}).get();
+		return enqueue(new OutgoingFrame(str, new CompletableFuture<>()));
 	}
 
 	public String logPrefix() {
 		return "connection " + getId();
 	}
 
-	private <T> CompletableFuture<T> withContext(Function<WebSocket, CompletableFuture<T>> function) {
-		CompletableFuture<T> future = new CompletableFuture<>();
-		executor.execute(() -> {
-			function.apply(webSocket).whenComplete((result, ex) -> {
+	public int getSendQueueSize() {
+		synchronized (sendQueue) {
+			return sendQueue.size();
+		}
+	}
+
+	private CompletableFuture<Void> enqueue(OutgoingFrame frame) {
+		synchronized (sendQueue) {
+			if (frame.text() != null) {
+				if (!throttled && sendQueue.size() >= settings.sendQueueHighWatermark()) {
+					throttled = true;
+					log.log(Level.WARNING, () -> logPrefix() + ", send queue reached " + sendQueue.size() +
+							" frames, rejecting new requests..");
+				}
+				if (throttled) {
+					return CompletableFuture.failedFuture(new JanusBackpressureException(
+							"Too many requests awaiting to be sent over " + logPrefix()));
+				}
+			}
+			sendQueue.offer(frame);
+			if (sending) {
+				return frame.future();
+			}
+			sending = true;
+		}
+		drainSendQueue();
+		return frame.future();
+	}
+
+	private void drainSendQueue() {
+		while (true) {
+			OutgoingFrame frame;
+			synchronized (sendQueue) {
+				frame = sendQueue.poll();
+				if (frame == null) {
+					sending = false;
+					return;
+				}
+				if (throttled && sendQueue.size() <= settings.sendQueueLowWatermark()) {
+					throttled = false;
+					log.log(Level.INFO, () -> logPrefix() + ", send queue drained, accepting new requests.");
+				}
+			}
+			CompletableFuture<Void> sent = write(frame);
+			if (sent.isDone()) {
+				frame.complete(sent);
+				continue;
+			}
+			sent.whenComplete((x, ex) -> {
+				frame.complete(sent);
+				drainSendQueue();
+			});
+			return;
+		}
+	}
+
+	private CompletableFuture<Void> write(OutgoingFrame frame) {
+		try {
+			return frame.text() == null
+				   ? transport.close()
+				   : transport.send(frame.text());
+		} catch (Throwable ex) {
+			return CompletableFuture.failedFuture(ex);
+		}
+	}
+
+	/**
+	 * Frame waiting to be written to the transport, frame with <code>null</code> text closes the connection.
+	 */
+	private record OutgoingFrame(String text, CompletableFuture<Void> future) {
+
+		void complete(CompletableFuture<Void> sent) {
+			sent.whenComplete((x, ex) -> {
 				if (ex != null) {
 					future.completeExceptionally(ex);
 				} else {
-					future.complete(result);
+					future.complete(null);
 				}
 			});
-		});
-		return future;
+		}
+
 	}
 
 	@FunctionalInterface
@@ -198,178 +377,99 @@ public class JanusConnection implements WebSocket.Listener {
 	}
 
 	@Override
-	public void onOpen(WebSocket webSocket) {
-		log.log(Level.FINEST, () -> logPrefix() + ", opened connection");
-		webSocket.request(1);
-
-	}
-
-	@Override
-	public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+	public void onClose(int statusCode, String reason) {
 		log.log(Level.FINEST, () -> logPrefix() + ", closed connection");
-		webSocket.request(1);
-		return null;
+		connected = false;
+		stopKeepAlive();
+		transactions.failAll(new JanusException(-1, "Connection closed: " + statusCode + " " + reason));
 	}
 
 	@Override
-	public void onError(WebSocket webSocket, Throwable error) {
+	public void onError(Throwable error) {
 		log.log(Level.WARNING, error, () -> logPrefix() + ", exception on connection");
-		webSocket.request(1);
+		connected = false;
+		stopKeepAlive();
+		transactions.failAll(error);
 	}
 
 	@Override
-	public CompletionStage<?> onBinary(WebSocket webSocket, ByteBuffer data, boolean last) {
-		log.log(Level.FINEST, () -> logPrefix() + ", received binary: " + data);
-		webSocket.request(1);
-		return null;
+	public void onMessage(JanusMessage message) {
+		dispatch(message);
 	}
 
-	@Override
-	public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
-		sb.append(data);
-		webSocket.request(1);
-		//log.log(Level.FINEST, () -> logPrefix() + ", received text: " + data);
-		if (last) {
-			log.log(Level.FINEST, () -> logPrefix() + ", received message: " + sb.toString());
-			try {
-				Map<String, Object> values = decode(sb.toString());
-				String janus = (String) values.get("janus");
-				String transaction = (String) values.get("transaction");
-				if (janus == null) {
-					throw new NullPointerException("Received JSON with 'janus' not set!");
+	/**
+	 * Passes message to be handled by the dispatcher. Messages of the same session are handled in order in which they
+	 * were received, while messages of different sessions are handled in parallel.
+	 */
+	protected void dispatch(JanusMessage message) {
+		long key = message.sessionId() != 0
+				   ? message.sessionId()
+				   : Optional.ofNullable(message.transaction()).map(String::hashCode).orElse(0);
+		dispatcher.execute(key, () -> handleMessage(message));
+	}
+
+	protected void handleMessage(JanusMessage message) {
+		log.log(Level.FINEST, () -> logPrefix() + ", received message: " + message);
+		try {
+			if (message instanceof JanusMessage.Success || message instanceof JanusMessage.ServerInfo) {
+				if (!transactions.complete(message.transaction(), message)) {
+					log.log(Level.WARNING, () -> logPrefix(message.transaction()) +
+							", received success without matching transaction, payload: " + message);
 				}
-				switch (janus) {
-					case "server_info":
-					case "success":
-						if (transaction == null) {
-							throw new NullPointerException("Received JSON with 'transaction' not set!");
-						}
-						removeExecuteTransaction(transaction).ifPresentOrElse(future -> future.complete(values),
-																							  () -> log.log(Level.WARNING, () -> logPrefix(transaction) + ", received success without matching transaction, payload: " + values));
-						break;
-					case "error":
-						if (transaction == null) {
-							throw new NullPointerException("Received JSON with 'transaction' not set!");
-						}
-						JanusException ex = new JanusException((Map<String, Object>) values.get("error"));
-						log.log(Level.WARNING, ex, () -> this.logPrefix(transaction) + ", request failed!");
-						removeExecuteTransaction(transaction).ifPresentOrElse(
-								future -> future.completeExceptionally(ex), () -> {
-									removeSendTransaction(transaction).ifPresentOrElse(
-											future -> future.completeExceptionally(ex), () -> log.log(Level.WARNING,
-																									  () -> logPrefix(
-																											  transaction) +
-																											  ", received error without matching transaction, payload: " +
-																											  values));
-								});
-						break;
-					case "ack":
-						if (transaction == null) {
-							throw new NullPointerException("Received JSON with 'transaction' not set!");
-						}
-						removeSendTransaction(transaction).ifPresent(future -> future.complete(null));
-
-						log.log(Level.FINEST, () -> this.logPrefix(transaction) + ", request acknowledged.");
-						break;
-					case "detached":
-						log.log(Level.FINEST, () -> logPrefix() + ", received detached event: " + values);
-						break;
-					case "event":
-						Optional<CompletableFuture<Map<String, Object>>> handler = transaction != null ? removeExecuteTransaction(transaction) : Optional.empty();
-						log.log(Level.FINEST, () -> logPrefix() + ", received event: " + values + ", with handler: " + handler.isPresent());
-						if (handler.isPresent()) {
-							handler.get().complete(values);
-						} else {
-							Optional.ofNullable((Long) values.get("session_id")).map(this::getSession).ifPresentOrElse(session -> session.handleEvent(values), () -> log.log(Level.WARNING, () -> logPrefix() + ", event for not existing session: " + values));
-						}
-						break;
-					case "trickle":
-						log.log(Level.FINEST, () -> logPrefix() + ", received trickle: " + values);
-						Optional.ofNullable((Long) values.get("session_id")).map(this::getSession).ifPresentOrElse(session -> session.handleTrickle(values), () -> log.log(Level.WARNING, () -> logPrefix() + ", trickle for not existing session: " + values));
-						break;
-					default:
-						log.log(Level.FINEST, () -> logPrefix() + ", received something: " + values);
-						break;
+			} else if (message instanceof JanusMessage.Error error) {
+				JanusException ex = error.toException();
+				log.log(Level.WARNING, ex, () -> this.logPrefix(error.transaction()) + ", request failed!");
+				if (!transactions.completeExceptionally(error.transaction(), ex)) {
+					log.log(Level.WARNING, () -> logPrefix(error.transaction()) +
+							", received error without matching transaction, payload: " + message);
 				}
-			} catch (Throwable e) {
-				log.log(Level.WARNING, e, () -> logPrefix() + ", JSON processing failed!\n" + sb.toString());
+			} else if (message instanceof JanusMessage.Ack) {
+				transactions.acknowledge(message.transaction());
+				log.log(Level.FINEST, () -> this.logPrefix(message.transaction()) + ", request acknowledged.");
+			} else if (message instanceof JanusMessage.HandleMessage handleMessage) {
+				boolean handled = message instanceof JanusMessage.Event && message.transaction() != null &&
+						transactions.complete(message.transaction(), message);
+				if (!handled) {
+					Optional.ofNullable(getSession(message.sessionId()))
+							.ifPresentOrElse(session -> session.handleMessage(handleMessage),
+											 () -> log.log(Level.WARNING, () -> logPrefix() + ", " +
+													 message.getClass().getSimpleName() +
+													 " for not existing session " + message.sessionId()));
+				}
+			} else {
+				log.log(Level.FINEST, () -> logPrefix() + ", received something: " + message);
 			}
-			sb = new StringBuilder();
+		} catch (Throwable e) {
+			log.log(Level.WARNING, e, () -> logPrefix() + ", message processing failed!\n" + message);
 		}
-		return null;
-	}
-
-	protected JanusSession getSession(long id) {
-		return activeSessions.get(id);
 	}
 
-	protected Optional<CompletableFuture<Map<String,Object>>> removeExecuteTransaction(String transactionId) {
-		return Optional.ofNullable(executeTransactions.get(transactionId));
+	private void stopKeepAlive() {
+		ScheduledFuture<?> task = keepAliveTask;
+		if (task != null) {
+			task.cancel(false);
+		}
 	}
 
-	protected Optional<CompletableFuture<Void>> removeSendTransaction(String transactionId) {
-		return Optional.ofNullable(sendTransactions.get(transactionId));
+	protected JanusSession getSession(long id) {
+		return activeSessions.get(id);
 	}
 
-	protected Map<String,Object> decode(String content) throws IOException {
-		JsonParser parser = jsonFactory.createParser(content);
-		try {
-			parser.nextToken();
-			return decode(parser);
-		} finally {
-			parser.close();
+	/**
+	 * Settings of the connection.
+	 * @param sessionTimeout timeout of Janus sessions
+	 * @param sendQueueHighWatermark no. of frames waiting to be sent after which new requests are rejected
+	 * @param sendQueueLowWatermark no. of frames waiting to be sent below which new requests are accepted again
+	 * @param requestTimeout time after which request without response from Janus fails
+	 * @param pluginRequestTimeout time after which request sent to the plugin without response fails
+	 */
+	public record Settings(Duration sessionTimeout, int sendQueueHighWatermark, int sendQueueLowWatermark,
+						   Duration requestTimeout, Duration pluginRequestTimeout) {
+
+		public Duration timeoutFor(String janus) {
+			return "message".equals(janus) ? pluginRequestTimeout : requestTimeout;
 		}
-	}
 
-	protected Map<String,Object> decode(JsonParser parser) throws IOException {
-		if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
-			throw new IllegalStateException("Invalid parser state! state = " + parser.getCurrentToken());
-		}
-		Map<String,Object> result = new HashMap<>();
-		String fieldName = null;
-		while (parser.nextToken() != JsonToken.END_OBJECT) {
-			JsonToken token = parser.getCurrentToken();
-			if (token == JsonToken.FIELD_NAME) {
-				fieldName = parser.getCurrentName();
-			} else {
-				result.put(fieldName, decodeValue(parser));
-			}
-		}
-		return result;
-	}
-
-	protected Object decodeValue(JsonParser parser) throws IOException {
-		JsonToken token = parser.getCurrentToken();
-		if (token == JsonToken.VALUE_STRING) {
-			return parser.getText();
-		} else if (token == JsonToken.VALUE_NULL) {
-			return null;
-		}  else if (token == JsonToken.VALUE_TRUE) {
-			return true;
-		} else if (token == JsonToken.VALUE_FALSE) {
-			return false;
-		} else if (token == JsonToken.VALUE_NUMBER_INT) {
-			return parser.getNumberValue();
-			//return parser.getIntValue();
-		} else if (token == JsonToken.VALUE_NUMBER_FLOAT) {
-			return parser.getFloatValue();
-		} else if (token == JsonToken.VALUE_EMBEDDED_OBJECT) {
-			return parser.getEmbeddedObject();
-		} else if (token == JsonToken.START_OBJECT) {
-			return decode(parser);
-		} else if (token == JsonToken.START_ARRAY) {
-			return decodeArray(parser);
-		} else {
-			throw new IllegalStateException("Unexpected token");
-		}
 	}
 
-	protected List decodeArray(JsonParser parser) throws IOException {
-		List list = new ArrayList<>();
-		while (parser.nextToken() != JsonToken.END_ARRAY) {
-			list.add(decodeValue(parser));
-		}
-		return list;
-	}
-	
 }
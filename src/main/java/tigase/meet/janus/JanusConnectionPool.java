@@ -0,0 +1,211 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet.janus;
+
+import java.net.URI;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Fixed size pool of connections to a single Janus server.
+ *
+ * Meets and sessions are spread across connections by hash of the key passed to {@link #getConnection(Object)}.
+ * Connection which was closed or failed to open is reopened on the next request for it.
+ */
+public class JanusConnectionPool {
+
+	private static final Logger log = Logger.getLogger(JanusConnectionPool.class.getCanonicalName());
+
+	private final URI uri;
+	private final Function<URI, CompletableFuture<JanusConnection>> connectionFactory;
+	private final AtomicReferenceArray<CompletableFuture<JanusConnection>> connections;
+	private final LongAdder expiredTransactionsOfClosedConnections = new LongAdder();
+	private final JanusSessionPool sessionPool;
+
+	public JanusConnectionPool(URI uri, int size, Function<URI, CompletableFuture<JanusConnection>> connectionFactory) {
+		this(uri, size, connectionFactory, JanusSessionPool.Settings.DISABLED);
+	}
+
+	public JanusConnectionPool(URI uri, int size, Function<URI, CompletableFuture<JanusConnection>> connectionFactory,
+							   JanusSessionPool.Settings sessionPoolSettings) {
+		if (size < 1) {
+			throw new IllegalArgumentException("Pool size must be greater than 0!");
+		}
+		this.uri = uri;
+		this.connectionFactory = connectionFactory;
+		this.connections = new AtomicReferenceArray<>(size);
+		this.sessionPool = new JanusSessionPool(this, sessionPoolSettings);
+	}
+
+	public URI getUri() {
+		return uri;
+	}
+
+	public int size() {
+		return connections.length();
+	}
+
+	/**
+	 * Returns pool of sessions prepared in advance on this Janus server.
+	 */
+	public JanusSessionPool getSessionPool() {
+		return sessionPool;
+	}
+
+	/**
+	 * Checks if any connection from the pool is opened or is being opened.
+	 */
+	public boolean isAvailable() {
+		for (int i = 0; i < connections.length(); i++) {
+			CompletableFuture<JanusConnection> future = connections.get(i);
+			if (future != null && isUsable(future)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public int getHandlesCount() {
+		return openedConnections().mapToInt(JanusConnection::getHandlesCount).sum();
+	}
+
+	/**
+	 * Returns average round trip time of requests sent to the Janus server.
+	 * @return round trip time in nanoseconds or -1 if not measured yet
+	 */
+	public long getRoundTripTime() {
+		return (long) openedConnections().mapToLong(JanusConnection::getRoundTripTime)
+				.filter(rtt -> rtt >= 0)
+				.average()
+				.orElse(-1);
+	}
+
+	public int getPendingTransactionsCount() {
+		return openedConnections().mapToInt(connection -> connection.getTransactions().getPendingCount()).sum();
+	}
+
+	/**
+	 * Returns number of transactions which expired without response from Janus, including ones of already closed
+	 * connections.
+	 */
+	public long getExpiredTransactionsCount() {
+		return expiredTransactionsOfClosedConnections.sum() +
+				openedConnections().mapToLong(connection -> connection.getTransactions().getExpiredCount()).sum();
+	}
+
+	private Stream<JanusConnection> openedConnections() {
+		return IntStream.range(0, connections.length())
+				.mapToObj(connections::get)
+				.filter(Objects::nonNull)
+				.filter(future -> future.isDone() && !future.isCompletedExceptionally())
+				.map(CompletableFuture::join)
+				.filter(JanusConnection::isConnected);
+	}
+
+	public CompletableFuture<Void> initialize() {
+		CompletableFuture<?>[] futures = new CompletableFuture[connections.length()];
+		for (int i = 0; i < futures.length; i++) {
+			futures[i] = getConnection(i);
+		}
+		return CompletableFuture.allOf(futures).whenComplete((x, ex) -> {
+			if (ex != null) {
+				log.log(Level.WARNING, ex, () -> logPrefix() + ", initialization failed.");
+			} else {
+				log.log(Level.CONFIG, () -> logPrefix() + ", " + futures.length + " connections opened.");
+			}
+		});
+	}
+
+	public CompletableFuture<JanusConnection> getConnection(Object key) {
+		return getConnection(Math.floorMod(key.hashCode(), connections.length()));
+	}
+
+	private CompletableFuture<JanusConnection> getConnection(int idx) {
+		CompletableFuture<JanusConnection> current = connections.get(idx);
+		if (current != null && isUsable(current)) {
+			return current;
+		}
+		CompletableFuture<JanusConnection> future = new CompletableFuture<>();
+		if (!connections.compareAndSet(idx, current, future)) {
+			// other thread is already replacing this connection
+			return connections.get(idx);
+		}
+		if (current != null && current.isDone() && !current.isCompletedExceptionally()) {
+			close(current.join());
+		}
+		log.log(Level.FINER, () -> logPrefix() + ", opening connection " + idx + "..");
+		connectionFactory.apply(uri)
+				.thenCompose(connection -> connection.getInfo().handle((info, ex) -> {
+					if (ex != null) {
+						close(connection);
+						throw new JanusException(-1, "Health check of " + uri + " failed: " + ex.getMessage());
+					}
+					return connection;
+				}))
+				.whenComplete((connection, ex) -> {
+					if (ex != null) {
+						future.completeExceptionally(ex);
+					} else {
+						future.complete(connection);
+					}
+				});
+		return future;
+	}
+
+	public void close() {
+		sessionPool.close();
+		for (int i = 0; i < connections.length(); i++) {
+			CompletableFuture<JanusConnection> future = connections.getAndSet(i, null);
+			if (future != null) {
+				future.thenAccept(this::close);
+			}
+		}
+	}
+
+	private void close(JanusConnection connection) {
+		// expired transactions of closed connections are still reported by the pool
+		expiredTransactionsOfClosedConnections.add(connection.getTransactions().getExpiredCount());
+		connection.close();
+	}
+
+	public String logPrefix() {
+		return "pool " + uri;
+	}
+
+	private static boolean isUsable(CompletableFuture<JanusConnection> future) {
+		if (!future.isDone()) {
+			return true;
+		}
+		if (future.isCompletedExceptionally()) {
+			return false;
+		}
+		return future.join().isConnected();
+	}
+
+	@Override
+	public String toString() {
+		return "JanusConnectionPool{" + "uri=" + uri + ", size=" + connections.length() + '}';
+	}
+}
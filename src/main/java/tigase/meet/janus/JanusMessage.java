@@ -0,0 +1,227 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet.janus;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Message received from Janus.
+ *
+ * Identifiers of sessions and handles are kept as primitives, <code>0</code> means that the identifier was not
+ * present in the message.
+ */
+public interface JanusMessage {
+
+	default String transaction() {
+		return null;
+	}
+
+	long sessionId();
+
+	/**
+	 * Message sent by the plugin attached to the session.
+	 */
+	interface HandleMessage extends JanusMessage {
+
+		long sender();
+
+	}
+
+	/**
+	 * Message which may carry data of the plugin and JSEP.
+	 */
+	interface PluginMessage extends HandleMessage {
+
+		PluginData pluginData();
+
+		JSEP jsep();
+
+	}
+
+	/**
+	 * Successful response to the request.
+	 * @param data content of the <code>data</code> field, ie. with id of created session or attached handle
+	 */
+	record Success(String transaction, long sessionId, long sender, Map<String, Object> data, PluginData pluginData,
+				   RawJson rawJsep)
+			implements PluginMessage {
+
+		@Override
+		public JSEP jsep() {
+			return JSEP.fromRaw(rawJsep);
+		}
+
+		public long id() {
+			Object id = data == null ? null : data.get("id");
+			if (id == null) {
+				throw new NullPointerException("Missing 'id'!");
+			}
+			return ((Number) id).longValue();
+		}
+
+	}
+
+	record ServerInfo(String transaction, Map<String, Object> info)
+			implements JanusMessage {
+
+		@Override
+		public long sessionId() {
+			return 0;
+		}
+
+	}
+
+	record Ack(String transaction, long sessionId)
+			implements JanusMessage {
+
+	}
+
+	record Error(String transaction, long sessionId, int code, String reason)
+			implements JanusMessage {
+
+		public JanusException toException() {
+			return new JanusException(code, reason);
+		}
+
+	}
+
+	/**
+	 * Asynchronous event of the plugin or response to the plugin request sent with the same transaction.
+	 */
+	record Event(String transaction, long sessionId, long sender, PluginData pluginData, RawJson rawJsep)
+			implements PluginMessage {
+
+		@Override
+		public JSEP jsep() {
+			return JSEP.fromRaw(rawJsep);
+		}
+
+	}
+
+	/**
+	 * ICE candidates of the handle, <code>completed</code> is set when Janus finished gathering of candidates.
+	 */
+	record Trickle(long sessionId, long sender, List<JanusPlugin.Candidate> candidates, boolean completed)
+			implements HandleMessage {
+
+	}
+
+	record WebRTCUp(long sessionId, long sender)
+			implements HandleMessage {
+
+	}
+
+	record HangUp(long sessionId, long sender, String reason)
+			implements HandleMessage {
+
+	}
+
+	record SlowLink(long sessionId, long sender, String media, String mid, boolean uplink, long lost)
+			implements HandleMessage {
+
+	}
+
+	record Media(long sessionId, long sender, String type, String mid, boolean receiving)
+			implements HandleMessage {
+
+	}
+
+	record Detached(long sessionId, long sender)
+			implements HandleMessage {
+
+	}
+
+	record Timeout(long sessionId)
+			implements JanusMessage {
+
+	}
+
+	/**
+	 * Message of type not known to this implementation.
+	 */
+	record Other(String janus, String transaction, long sessionId, Map<String, Object> values)
+			implements JanusMessage {
+
+	}
+
+	/**
+	 * JSON object kept as received (UTF-8 encoded) until it is decoded by the code handling the message.
+	 */
+	final class RawJson {
+
+		private final byte[] json;
+
+		public RawJson(byte[] json) {
+			this.json = json;
+		}
+
+		public Map<String, Object> decode() {
+			try {
+				return JanusMessageDecoder.decode(json);
+			} catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+
+		public int size() {
+			return json.length;
+		}
+
+		@Override
+		public String toString() {
+			return new String(json, StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * Data of the plugin attached to the message, decoded on first access.
+	 */
+	final class PluginData {
+
+		private final RawJson json;
+		private Map<String, Object> plugindata;
+
+		public PluginData(RawJson json) {
+			this.json = json;
+		}
+
+		public String plugin() {
+			return (String) plugindata().get("plugin");
+		}
+
+		public Map<String, Object> data() {
+			return (Map<String, Object>) plugindata().get("data");
+		}
+
+		private synchronized Map<String, Object> plugindata() {
+			if (plugindata == null) {
+				plugindata = json.decode();
+			}
+			return plugindata;
+		}
+
+		@Override
+		public String toString() {
+			return "PluginData{" + json + '}';
+		}
+	}
+}
@@ -0,0 +1,506 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet.janus;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Incremental decoder of JSON messages received from Janus.
+ *
+ * Fragments of a message are encoded to UTF-8 into a reusable buffer and fed to the non-blocking Jackson parser as
+ * they arrive, so the message is decoded while it is being received and is never joined into a single
+ * <code>String</code>. Top level fields are collected directly into {@link JanusMessage} without intermediate map.
+ * <br>
+ * Bodies of <code>plugindata</code> and <code>jsep</code> are not decoded here. Their bytes are captured as
+ * {@link JanusMessage.RawJson} and are decoded only if they are used by the plugin which should handle the message.
+ * Decoder is not thread-safe and should be used by a single connection.
+ */
+public class JanusMessageDecoder {
+
+	private static final JsonFactory jsonFactory = new JsonFactory();
+
+	private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+	private final ByteBuffer buffer;
+	private final ArrayDeque<Object> containers = new ArrayDeque<>();
+	private JsonParser parser;
+	private String fieldName;
+	private MessageBuilder builder;
+	private JanusMessage result;
+	// unpaired high surrogate from the end of the previous fragment
+	private CharBuffer carry;
+	// no. of bytes fed to the current parser, used to map token locations to the buffer
+	private long fedBytes;
+	private String capturedField;
+	private int capturedDepth;
+	private long captureStart;
+	private byte[] captured = new byte[1024];
+	private int capturedLength;
+
+	public JanusMessageDecoder() {
+		this(8192);
+	}
+
+	public JanusMessageDecoder(int bufferSize) {
+		this.buffer = ByteBuffer.allocate(bufferSize);
+	}
+
+	/**
+	 * Feeds the decoder with the next fragment of a message.
+	 * @param data fragment of the message
+	 * @param last <code>true</code> if this is the last fragment of the message
+	 * @return decoded message if <code>last</code> was set, <code>null</code> otherwise
+	 * @throws IOException if message is not valid JSON object, decoder is reset in this case
+	 */
+	public JanusMessage feed(CharSequence data, boolean last) throws IOException {
+		try {
+			CharBuffer in = CharBuffer.wrap(data);
+			if (carry != null && in.hasRemaining()) {
+				CharBuffer joined = CharBuffer.allocate(carry.remaining() + 1);
+				joined.put(carry).put(in.get()).flip();
+				carry = null;
+				encode(joined, false);
+			}
+			encode(in, last);
+			if (in.hasRemaining()) {
+				carry = CharBuffer.wrap(in.toString());
+			}
+			return last ? complete() : null;
+		} catch (IOException|RuntimeException ex) {
+			reset();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Feeds the decoder with the next fragment of a UTF-8 encoded message, ie. a packet received from a Unix socket.
+	 * Bytes are passed to the parser without any conversion.
+	 * @param last <code>true</code> if this is the last fragment of the message
+	 * @return decoded message if <code>last</code> was set, <code>null</code> otherwise
+	 * @throws IOException if message is not valid JSON object, decoder is reset in this case
+	 */
+	public JanusMessage feed(byte[] data, int offset, int length, boolean last) throws IOException {
+		try {
+			int end = offset + length;
+			while (offset < end) {
+				int count = Math.min(end - offset, buffer.remaining());
+				buffer.put(data, offset, count);
+				offset += count;
+				flush();
+			}
+			return last ? complete() : null;
+		} catch (IOException|RuntimeException ex) {
+			reset();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Drops partially decoded message.
+	 */
+	public void reset() {
+		if (parser != null) {
+			try {
+				parser.close();
+			} catch (IOException ex) {
+				// nothing to do, parser is dropped anyway
+			}
+			parser = null;
+		}
+		encoder.reset();
+		buffer.clear();
+		containers.clear();
+		fieldName = null;
+		builder = null;
+		result = null;
+		carry = null;
+		fedBytes = 0;
+		capturedField = null;
+		capturedLength = 0;
+	}
+
+	private JanusMessage complete() throws IOException {
+		if (result == null || carry != null) {
+			throw new IOException("Incomplete JSON message");
+		}
+		JanusMessage message = result;
+		result = null;
+		return message;
+	}
+
+	private void encode(CharBuffer in, boolean last) throws IOException {
+		while (true) {
+			CoderResult coderResult = encoder.encode(in, buffer, last);
+			if (coderResult.isError()) {
+				coderResult.throwException();
+			}
+			flush();
+			if (coderResult.isUnderflow()) {
+				break;
+			}
+		}
+		if (last) {
+			CoderResult coderResult;
+			do {
+				coderResult = encoder.flush(buffer);
+				flush();
+			} while (coderResult.isOverflow());
+			encoder.reset();
+		}
+	}
+
+	private void flush() throws IOException {
+		buffer.flip();
+		if (buffer.hasRemaining()) {
+			if (parser == null) {
+				parser = jsonFactory.createNonBlockingByteArrayParser();
+			}
+			long bufferStart = fedBytes;
+			fedBytes += buffer.remaining();
+			((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).feedInput(buffer.array(), buffer.position(),
+																			  buffer.limit());
+			parseAvailableTokens(bufferStart);
+			if (capturedField != null) {
+				// captured value continues in the next part of the message
+				appendCaptured(bufferStart, fedBytes);
+			}
+		}
+		buffer.clear();
+	}
+
+	private void parseAvailableTokens(long bufferStart) throws IOException {
+		JsonToken token;
+		while ((token = parser.nextToken()) != JsonToken.NOT_AVAILABLE && token != null) {
+			if (capturedField != null) {
+				if (token.isStructStart()) {
+					capturedDepth++;
+				} else if (token.isStructEnd() && --capturedDepth == 0) {
+					appendCaptured(bufferStart, parser.getCurrentLocation().getByteOffset());
+					builder.set(capturedField, new JanusMessage.RawJson(Arrays.copyOf(captured, capturedLength)));
+					capturedField = null;
+					capturedLength = 0;
+				}
+				continue;
+			}
+			switch (token) {
+				case FIELD_NAME:
+					fieldName = parser.getCurrentName();
+					break;
+				case START_OBJECT:
+					if (containers.isEmpty()) {
+						if (result != null) {
+							throw new IOException("Received more than one JSON value in a single message");
+						}
+						builder = new MessageBuilder();
+						containers.push(builder);
+					} else if (containers.peek() == builder && isCaptured(fieldName)) {
+						capturedField = fieldName;
+						capturedDepth = 1;
+						// current location is just after the opening bracket
+						captureStart = parser.getCurrentLocation().getByteOffset() - 1;
+					} else {
+						startContainer(new HashMap<String, Object>());
+					}
+					break;
+				case START_ARRAY:
+					if (containers.isEmpty()) {
+						throw new IOException("Expected JSON object but received array");
+					}
+					startContainer(new ArrayList<>());
+					break;
+				case END_OBJECT:
+				case END_ARRAY:
+					containers.pop();
+					if (containers.isEmpty()) {
+						result = builder.build();
+						builder = null;
+					}
+					break;
+				case VALUE_NUMBER_INT:
+					if (containers.peek() == builder) {
+						// identifiers are read without boxing
+						builder.setLong(fieldName, parser.getLongValue());
+					} else {
+						addValue(decodeScalar(parser, token));
+					}
+					break;
+				default:
+					addValue(decodeScalar(parser, token));
+					break;
+			}
+		}
+	}
+
+	private static boolean isCaptured(String field) {
+		return "plugindata".equals(field) || "jsep".equals(field);
+	}
+
+	private void appendCaptured(long bufferStart, long end) {
+		int from = buffer.position() + (int) (Math.max(captureStart, bufferStart) - bufferStart);
+		int length = (int) (end - Math.max(captureStart, bufferStart));
+		if (capturedLength + length > captured.length) {
+			captured = Arrays.copyOf(captured, Math.max(captured.length * 2, capturedLength + length));
+		}
+		System.arraycopy(buffer.array(), from, captured, capturedLength, length);
+		capturedLength += length;
+	}
+
+	private void startContainer(Object container) throws IOException {
+		addValue(container);
+		containers.push(container);
+	}
+
+	private void addValue(Object value) throws IOException {
+		Object container = containers.peek();
+		if (container == builder && builder != null) {
+			builder.set(fieldName, value);
+		} else if (container instanceof Map) {
+			((Map<String, Object>) container).put(fieldName, value);
+		} else if (container instanceof List) {
+			((List<Object>) container).add(value);
+		} else {
+			throw new IOException("Expected JSON object but received " + value);
+		}
+	}
+
+	/**
+	 * Decodes complete JSON object.
+	 */
+	public static Map<String, Object> decode(byte[] json) throws IOException {
+		try (JsonParser parser = jsonFactory.createParser(json)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new IOException("Expected JSON object but received " + parser.getCurrentToken());
+			}
+			return decodeObject(parser);
+		}
+	}
+
+	private static Map<String, Object> decodeObject(JsonParser parser) throws IOException {
+		Map<String, Object> result = new HashMap<>();
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String name = parser.getCurrentName();
+			result.put(name, decodeValue(parser, parser.nextToken()));
+		}
+		return result;
+	}
+
+	private static List<Object> decodeArray(JsonParser parser) throws IOException {
+		List<Object> result = new ArrayList<>();
+		JsonToken token;
+		while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+			result.add(decodeValue(parser, token));
+		}
+		return result;
+	}
+
+	private static Object decodeValue(JsonParser parser, JsonToken token) throws IOException {
+		switch (token) {
+			case START_OBJECT:
+				return decodeObject(parser);
+			case START_ARRAY:
+				return decodeArray(parser);
+			default:
+				return decodeScalar(parser, token);
+		}
+	}
+
+	private static Object decodeScalar(JsonParser parser, JsonToken token) throws IOException {
+		switch (token) {
+			case VALUE_STRING:
+				return parser.getText();
+			case VALUE_NULL:
+				return null;
+			case VALUE_TRUE:
+				return true;
+			case VALUE_FALSE:
+				return false;
+			case VALUE_NUMBER_INT:
+				return parser.getNumberValue();
+			case VALUE_NUMBER_FLOAT:
+				return parser.getFloatValue();
+			case VALUE_EMBEDDED_OBJECT:
+				return parser.getEmbeddedObject();
+			default:
+				throw new IllegalStateException("Unexpected token " + token);
+		}
+	}
+
+	/**
+	 * Collects top level fields of the message. Nested objects are added when they are started and are filled in
+	 * later, so they are converted to typed values only in {@link #build()}.
+	 */
+	private static class MessageBuilder {
+
+		private String janus;
+		private String transaction;
+		private long sessionId;
+		private long sender;
+		private Map<String, Object> data;
+		private JanusMessage.RawJson pluginData;
+		private JanusMessage.RawJson jsep;
+		private Map<String, Object> error;
+		private Map<String, Object> candidate;
+		private List<Map<String, Object>> candidates;
+		private Map<String, Object> other;
+
+		void setLong(String field, long value) {
+			switch (field) {
+				case "session_id":
+					sessionId = value;
+					break;
+				case "sender":
+					sender = value;
+					break;
+				default:
+					set(field, value);
+					break;
+			}
+		}
+
+		void set(String field, Object value) {
+			switch (field) {
+				case "janus":
+					janus = (String) value;
+					break;
+				case "transaction":
+					transaction = (String) value;
+					break;
+				case "session_id":
+					sessionId = ((Number) value).longValue();
+					break;
+				case "sender":
+					sender = ((Number) value).longValue();
+					break;
+				case "data":
+					data = (Map<String, Object>) value;
+					break;
+				case "plugindata":
+					pluginData = (JanusMessage.RawJson) value;
+					break;
+				case "jsep":
+					jsep = (JanusMessage.RawJson) value;
+					break;
+				case "error":
+					error = (Map<String, Object>) value;
+					break;
+				case "candidate":
+					candidate = (Map<String, Object>) value;
+					break;
+				case "candidates":
+					candidates = (List<Map<String, Object>>) value;
+					break;
+				default:
+					if (other == null) {
+						other = new HashMap<>();
+					}
+					other.put(field, value);
+					break;
+			}
+		}
+
+		JanusMessage build() throws IOException {
+			if (janus == null) {
+				throw new IOException("Received JSON with 'janus' not set!");
+			}
+			switch (janus) {
+				case "success":
+					return new JanusMessage.Success(requireTransaction(), sessionId, sender, data, pluginData(), jsep);
+				case "server_info":
+					return new JanusMessage.ServerInfo(requireTransaction(),
+													   other == null ? Collections.emptyMap() : other);
+				case "ack":
+					return new JanusMessage.Ack(requireTransaction(), sessionId);
+				case "error":
+					if (error == null) {
+						throw new IOException("Received error without 'error' field!");
+					}
+					return new JanusMessage.Error(requireTransaction(), sessionId,
+												  ((Number) error.get("code")).intValue(), (String) error.get("reason"));
+				case "event":
+					return new JanusMessage.Event(transaction, sessionId, sender, pluginData(), jsep);
+				case "trickle":
+					return trickle();
+				case "webrtcup":
+					return new JanusMessage.WebRTCUp(sessionId, sender);
+				case "hangup":
+					return new JanusMessage.HangUp(sessionId, sender, getString("reason"));
+				case "slowlink":
+					return new JanusMessage.SlowLink(sessionId, sender, getString("media"), getString("mid"),
+													 Boolean.TRUE.equals(get("uplink")),
+													 Optional.ofNullable((Number) get("lost"))
+															 .map(Number::longValue)
+															 .orElse(0L));
+				case "media":
+					return new JanusMessage.Media(sessionId, sender, getString("type"), getString("mid"),
+												  Boolean.TRUE.equals(get("receiving")));
+				case "detached":
+					return new JanusMessage.Detached(sessionId, sender);
+				case "timeout":
+					return new JanusMessage.Timeout(sessionId);
+				default:
+					return new JanusMessage.Other(janus, transaction, sessionId,
+												  other == null ? Collections.emptyMap() : other);
+			}
+		}
+
+		private JanusMessage.Trickle trickle() {
+			List<JanusPlugin.Candidate> result = new ArrayList<>();
+			boolean completed = false;
+			List<Map<String, Object>> list = candidates != null
+											 ? candidates
+											 : candidate != null ? List.of(candidate) : Collections.emptyList();
+			for (Map<String, Object> map : list) {
+				if (map.containsKey("completed")) {
+					completed = true;
+				} else {
+					result.add(JanusPlugin.Candidate.fromMap(map));
+				}
+			}
+			return new JanusMessage.Trickle(sessionId, sender, result, completed);
+		}
+
+		private JanusMessage.PluginData pluginData() {
+			return pluginData == null ? null : new JanusMessage.PluginData(pluginData);
+		}
+
+		private String requireTransaction() throws IOException {
+			if (transaction == null) {
+				throw new IOException("Received JSON with 'transaction' not set!");
+			}
+			return transaction;
+		}
+
+		private Object get(String field) {
+			return other == null ? null : other.get(field);
+		}
+
+		private String getString(String field) {
+			return (String) get(field);
+		}
+	}
+}
@@ -24,9 +24,13 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public abstract class JanusPlugin<T extends JanusPlugin.Content> {
 
+	private static final Logger log = Logger.getLogger(JanusPlugin.class.getCanonicalName());
+
 	public static <T extends JanusPlugin> T newInstance(Class<T> pluginClass, JanusSession session,
 														Map<String, Object> data) {
 		try {
@@ -56,27 +60,40 @@ public abstract class JanusPlugin<T extends JanusPlugin.Content> {
 
 	public abstract void handleEvent(T content);
 
-	public void handleTrickle(Map<String, Object> trickle) {
-		List<Map<String, Object>> list = (List<Map<String, Object>>) trickle.get("candidates");
-		if (list != null) {
-			for (Map<String, Object> map : list) {
-				if (map.containsKey("completed")) {
-					continue;
-				}
-				receivedCandidate(Candidate.fromMap(map));
-			}
+	public void handleMessage(JanusMessage.HandleMessage message) {
+		if (message instanceof JanusMessage.Event event) {
+			handleEvent(extractData(event));
+		} else if (message instanceof JanusMessage.Trickle trickle) {
+			handleTrickle(trickle);
 		} else {
-			Object map = trickle.get("candidate");
-			if (map instanceof Map) {
-				if (!((Map)map).containsKey("completed")) {
-					receivedCandidate(Candidate.fromMap((Map<String, Object>) map));
-				}
-			}
+			handleStateChange(message);
 		}
 	}
 
+	public void handleTrickle(JanusMessage.Trickle trickle) {
+		for (Candidate candidate : trickle.candidates()) {
+			receivedCandidate(candidate);
+		}
+		if (trickle.completed()) {
+			receivedCandidatesCompleted();
+		}
+	}
+
+	/**
+	 * Called for <code>webrtcup</code>, <code>media</code>, <code>slowlink</code>, <code>hangup</code> and
+	 * <code>detached</code> messages of this handle.
+	 */
+	protected void handleStateChange(JanusMessage.HandleMessage message) {
+		log.log(Level.FINEST, () -> toString() + ", received " + message);
+	}
+
 	protected abstract void receivedCandidate(Candidate candidate);
 
+	/**
+	 * Called when Janus reports that it finished gathering of its candidates for this handle.
+	 */
+	protected abstract void receivedCandidatesCompleted();
+
 	public JanusSession getSession() {
 		return session;
 	}
@@ -129,34 +146,50 @@ public abstract class JanusPlugin<T extends JanusPlugin.Content> {
 		});
 	}
 
+	public CompletableFuture<Void> sendTrickle(String transaction, List<Candidate> candidates) {
+		if (candidates.size() == 1) {
+			return sendTrickle(transaction, candidates.get(0));
+		}
+		return sendTrickle(transaction, generator -> {
+			generator.writeArrayFieldStart("candidates");
+			for (Candidate candidate : candidates) {
+				candidate.write(generator);
+			}
+			generator.writeEndArray();
+		});
+	}
+
 	public CompletableFuture<Void> detach() {
 		return session.detachPlugin(this);
 	}
 	
-	protected T extractData(Map<String, Object> response) {
-		Map<String, Object> plugindata = (Map<String, Object>) response.get("plugindata");
+	protected T extractData(JanusMessage response) {
+		if (!(response instanceof JanusMessage.PluginMessage pluginMessage)) {
+			throw new IllegalArgumentException("Received response without plugin data: " + response);
+		}
+		JanusMessage.PluginData plugindata = pluginMessage.pluginData();
 		if (plugindata == null) {
 			throw new NullPointerException("Received JSON with 'plugindata' not set!");
 		}
-		if (!getId().equals(plugindata.get("plugin"))) {
-			throw new IllegalArgumentException("Received data by plugin " + getId() + " sent for " + plugindata.get("plugin"));
+		if (!getId().equals(plugindata.plugin())) {
+			throw new IllegalArgumentException("Received data by plugin " + getId() + " sent for " + plugindata.plugin());
 		}
-		Map<String, Object> data = (Map<String, Object>) plugindata.get("data");
+		Map<String, Object> data = plugindata.data();
 		if (data == null) {
 			throw new NullPointerException("Missing 'data' for plugin!");
 		}
 
 		assertNotError(data);
 		
-		return newContent(data, JSEP.fromData(response));
+		return newContent(data, pluginMessage.jsep());
 	}
 
 	protected abstract T newContent(Map<String, Object> data, JSEP jsep);
 	
 	protected void assertNotError(Map<String, Object> data) {
-		Integer errorCode = (Integer) data.get("error_code");
+		Number errorCode = (Number) data.get("error_code");
 		if (errorCode != null) {
-			throw new JanusException(errorCode, (String) data.get("error"));
+			throw new JanusException(errorCode.intValue(), (String) data.get("error"));
 		}
 	}
 
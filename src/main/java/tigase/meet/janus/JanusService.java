@@ -24,6 +24,10 @@ import tigase.kernel.beans.UnregisterAware;
 import tigase.kernel.beans.config.ConfigField;
 import tigase.meet.IMeetRepository;
 import tigase.meet.MeetComponent;
+import tigase.meet.utils.StripedExecutor;
+import tigase.meet.utils.TimingWheel;
+import tigase.stats.ComponentStatisticsProvider;
+import tigase.stats.StatisticsList;
 
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLEngine;
@@ -36,23 +40,56 @@ import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 @Bean(name = "janus", parent = MeetComponent.class, active = true)
-public class JanusService implements Initializable, UnregisterAware {
+public class JanusService implements Initializable, UnregisterAware, ComponentStatisticsProvider {
 	@ConfigField(desc = "URI for connect to Janus", alias = "uri")
 	private String uri;
+	@ConfigField(desc = "URIs for connect to multiple Janus servers (ws://, wss:// or unix:// for Janus pfunix transport)", alias = "uris")
+	private String[] uris;
 	@ConfigField(desc = "Janus session timeout", alias = "session-timeout")
 	private Duration sessionTimeout = Duration.of(60, ChronoUnit.SECONDS);
+	@ConfigField(desc = "Number of connections opened to Janus", alias = "connections")
+	private int connections = 4;
+	@ConfigField(desc = "No. of requests waiting to be sent after which new requests are rejected", alias = "send-queue-high-watermark")
+	private int sendQueueHighWatermark = 1000;
+	@ConfigField(desc = "No. of requests waiting to be sent below which new requests are accepted again", alias = "send-queue-low-watermark")
+	private int sendQueueLowWatermark = 500;
+	@ConfigField(desc = "Time after which request without response from Janus fails", alias = "request-timeout")
+	private Duration requestTimeout = Duration.ofSeconds(10);
+	@ConfigField(desc = "Time after which request to Janus plugin without response fails", alias = "plugin-request-timeout")
+	private Duration pluginRequestTimeout = Duration.ofSeconds(30);
+	@ConfigField(desc = "Number of threads handling messages received from Janus", alias = "dispatcher-threads")
+	private int dispatcherThreads = Runtime.getRuntime().availableProcessors();
+	@ConfigField(desc = "Number of queues for ordered handling of messages received from Janus", alias = "dispatcher-stripes")
+	private int dispatcherStripes = 256;
+	@ConfigField(desc = "Minimal number of Janus sessions prepared in advance on each Janus server", alias = "session-pool-min-size")
+	private int sessionPoolMinSize = 2;
+	@ConfigField(desc = "Maximal number of Janus sessions prepared in advance on each Janus server", alias = "session-pool-max-size")
+	private int sessionPoolMaxSize = 32;
+	@ConfigField(desc = "Period of time for which Janus sessions are prepared at the recent rate of joins", alias = "session-pool-horizon")
+	private Duration sessionPoolHorizon = Duration.ofSeconds(10);
 
 	private HttpClient client;
+	private List<JanusConnectionPool> connectionPools = Collections.emptyList();
 
 	private JanusPluginsRegister pluginsRegister = new JanusPluginsRegister();
 	private ScheduledExecutorService executorService;
+	private final TimingWheel timingWheel = new TimingWheel(Duration.ofMillis(100), 512);
+	private ExecutorService dispatcherExecutorService;
+	private StripedExecutor dispatcher;
 
 
 	@Inject(nullAllowed = true)
@@ -65,16 +102,41 @@ public class JanusService implements Initializable, UnregisterAware {
 			sslContext.init(null, new TrustManager[] {new DummyTrustManager()}, null);
 			client = HttpClient.newBuilder().sslContext(sslContext).build();
 			executorService = Executors.newScheduledThreadPool(4);
+			long tick = timingWheel.getTickDuration().toMillis();
+			executorService.scheduleAtFixedRate(timingWheel::advance, tick, tick, TimeUnit.MILLISECONDS);
+			dispatcherExecutorService = Executors.newFixedThreadPool(dispatcherThreads);
+			dispatcher = new StripedExecutor(dispatcherExecutorService, dispatcherStripes);
 		} catch (Exception e) {
 			throw new RuntimeException(e);
 		}
+		List<String> serverUris = uris != null && uris.length > 0
+								  ? Arrays.asList(uris)
+								  : Optional.ofNullable(uri).map(List::of).orElse(Collections.emptyList());
+		if (serverUris.isEmpty()) {
+			log.log(Level.WARNING, "URI for connect to Janus is not set!");
+		}
+		connectionPools = serverUris.stream()
+				.map(URI::create)
+				.map(serverUri -> new JanusConnectionPool(serverUri, connections, this::newConnection,
+														  new JanusSessionPool.Settings(sessionPoolMinSize,
+																						sessionPoolMaxSize,
+																						sessionPoolHorizon)))
+				.collect(Collectors.toUnmodifiableList());
+		connectionPools.forEach(pool -> pool.initialize()
+				.thenRun(() -> pool.getSessionPool().tick()));
+		executorService.scheduleAtFixedRate(
+				() -> connectionPools.forEach(pool -> pool.getSessionPool().tick()), 1, 1, TimeUnit.SECONDS);
 	}
 
 	@Override
 	public void beforeUnregister() {
+		connectionPools.forEach(JanusConnectionPool::close);
 		if (executorService != null) {
 			executorService.shutdown();
 		}
+		if (dispatcherExecutorService != null) {
+			dispatcherExecutorService.shutdown();
+		}
 	}
 	
 	static class DummyTrustManager extends X509ExtendedTrustManager {
@@ -122,14 +184,64 @@ public class JanusService implements Initializable, UnregisterAware {
 
 	private static final Logger log = Logger.getLogger(JanusService.class.getCanonicalName());
 
+	public List<JanusConnectionPool> getConnectionPools() {
+		return connectionPools;
+	}
+
+	@Override
+	public void everyHour() {
+	}
+
+	@Override
+	public void everyMinute() {
+		if (dispatcher != null) {
+			dispatcher.resetLagStatistics();
+		}
+	}
+
+	@Override
+	public void everySecond() {
+	}
+
+	@Override
+	public void getStatistics(String compName, StatisticsList list) {
+		if (list.checkLevel(Level.FINE)) {
+			list.add(compName + "/janus", "pending transactions",
+					 connectionPools.stream().mapToInt(JanusConnectionPool::getPendingTransactionsCount).sum(),
+					 Level.FINE);
+			list.add(compName + "/janus", "expired transactions",
+					 connectionPools.stream().mapToLong(JanusConnectionPool::getExpiredTransactionsCount).sum(),
+					 Level.FINE);
+			list.add(compName + "/janus", "pooled sessions",
+					 connectionPools.stream().mapToInt(pool -> pool.getSessionPool().getIdleCount()).sum(),
+					 Level.FINE);
+			if (dispatcher != null) {
+				list.add(compName + "/janus", "dispatcher queue size", dispatcher.getQueueSize(), Level.FINE);
+				list.add(compName + "/janus", "dispatcher average lag last minute [ms]",
+						 TimeUnit.NANOSECONDS.toMillis(dispatcher.getAverageLag()), Level.FINE);
+				list.add(compName + "/janus", "dispatcher maximum lag last minute [ms]",
+						 TimeUnit.NANOSECONDS.toMillis(dispatcher.getMaxLag()), Level.FINE);
+			}
+		}
+	}
+
 	public CompletableFuture<JanusConnection> newConnection() {
-		JanusConnection connection = new JanusConnection(pluginsRegister, executorService, sessionTimeout);
+		return newConnection(URI.create(uri));
+	}
+
+	public CompletableFuture<JanusConnection> newConnection(URI uri) {
+		JanusConnection connection = new JanusConnection(pluginsRegister, executorService, timingWheel, dispatcher,
+														 new JanusConnection.Settings(sessionTimeout,
+																					  sendQueueHighWatermark,
+																					  sendQueueLowWatermark,
+																					  requestTimeout,
+																					  pluginRequestTimeout));
 		log.log(Level.FINER, () -> connection.logPrefix() + ", creating connection..");
-		return client.newWebSocketBuilder()
-				.subprotocols("janus-protocol")
-				.buildAsync(URI.create(uri), connection)
-				.thenApply(webSocket -> {
-					connection.setWebSocket(webSocket);
+		CompletableFuture<JanusTransport> transport = JanusUnixSocketTransport.SCHEME.equals(uri.getScheme())
+													  ? JanusUnixSocketTransport.connect(uri, connection)
+													  : JanusWebSocketTransport.connect(client, uri, connection);
+		return transport.thenApply(connected -> {
+					connection.setTransport(connected);
 					return connection;
 				}).whenComplete((conn, ex) -> {
 					if (ex != null) {
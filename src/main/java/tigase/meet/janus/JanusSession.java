@@ -17,8 +17,8 @@
  */
 package tigase.meet.janus;
 
-import java.time.Duration;
-import java.util.Map;
+import tigase.meet.utils.TimingWheel;
+
 import java.util.concurrent.*;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -29,21 +29,14 @@ public class JanusSession {
 
 	private final JanusConnection connection;
 	private final long sessionId;
-	private ScheduledFuture<?> keepAliveFuture;
+	private volatile long lastActivity = System.nanoTime();
+	private volatile TimingWheel.Timeout keepAliveTimeout;
 
 	private final ConcurrentHashMap<Long,JanusPlugin> attachedPlugins = new ConcurrentHashMap<>();
 
-	protected JanusSession(JanusConnection connection, Map<String, Object> sessionData) {
-		if (sessionData == null) {
-			throw new IllegalArgumentException("Missing 'sessionData'!");
-		}
-		Long id = (Long) sessionData.get("id");
-		if (id == null) {
-			throw new IllegalArgumentException("Missing session id!");
-		}
-		
+	protected JanusSession(JanusConnection connection, long sessionId) {
 		this.connection = connection;
-		this.sessionId = id;
+		this.sessionId = sessionId;
 	}
 
 	public JanusConnection getConnection() {
@@ -54,6 +47,10 @@ public class JanusSession {
 		return sessionId;
 	}
 
+	public int getAttachedPluginsCount() {
+		return attachedPlugins.size();
+	}
+
 	public String nextTransactionId() {
 		return connection.nextTransactionId();
 	}
@@ -66,36 +63,18 @@ public class JanusSession {
 		return connection.logPrefix(transaction) + ", session " + this.getSessionId();
 	}
 
-	public void handleEvent(Map<String, Object> event) {
-		Long senderId = (Long) event.get("sender");
-		if (senderId != null) {
-			JanusPlugin plugin = attachedPlugins.get(senderId);
-			if (plugin != null) {
-				JanusPlugin.Content content = plugin.extractData(event);
-				plugin.handleEvent(content);
-			} else {
-				log.log(Level.WARNING, () -> logPrefix() + ", received event from unknown sender: " + senderId + ", values: " + event);
-			}
+	public void handleMessage(JanusMessage.HandleMessage message) {
+		JanusPlugin plugin = attachedPlugins.get(message.sender());
+		if (plugin != null) {
+			plugin.handleMessage(message);
 		} else {
-			log.log(Level.WARNING, () -> logPrefix() + ", received event from without sender, values: " + event);
-		}
-	}
-
-	public void handleTrickle(Map<String, Object> trickle) {
-		Long senderId = (Long) trickle.get("sender");
-		if (senderId != null) {
-			JanusPlugin plugin = attachedPlugins.get(senderId);
-			if (plugin != null) {
-				plugin.handleTrickle(trickle);
-			} else {
-				log.log(Level.WARNING, () -> logPrefix() + ", received trickle from unknown sender: " + senderId + ", values: " + trickle);
-			}
-		} else {
-			log.log(Level.WARNING, () -> logPrefix() + ", received trickle from without sender, values: " + trickle);
+			log.log(Level.WARNING, () -> logPrefix() + ", received " + message.getClass().getSimpleName() +
+					" from unknown sender: " + message.sender());
 		}
 	}
 	
-	public CompletableFuture<Map<String,Object>> execute(String janus, String transaction, JanusConnection.RequestGenerator requestGenerator) {
+	public CompletableFuture<JanusMessage> execute(String janus, String transaction, JanusConnection.RequestGenerator requestGenerator) {
+		lastActivity = System.nanoTime();
 		return connection.execute(janus, transaction, generator -> {
 			generator.writeNumberField("session_id", sessionId);
 			requestGenerator.accept(generator);
@@ -103,6 +82,7 @@ public class JanusSession {
 	}
 
 	public CompletableFuture<Void> send(String janus, String transaction, JanusConnection.RequestGenerator requestGenerator) {
+		lastActivity = System.nanoTime();
 		return connection.send(janus, transaction, generator -> {
 			generator.writeNumberField("session_id", sessionId);
 			requestGenerator.accept(generator);
@@ -116,7 +96,7 @@ public class JanusSession {
 				pluginClass.getCanonicalName() + "...");
 		return execute("attach", transaction, generator -> {
 			generator.writeStringField("plugin", pluginId);
-		}).thenApply(data -> JanusPlugin.newInstance(pluginClass, this, (Map<String, Object>) data.get("data"))).whenComplete((plugin, ex) -> {
+		}).thenApply(message -> JanusPlugin.newInstance(pluginClass, this, ((JanusMessage.Success) message).data())).whenComplete((plugin, ex) -> {
 			if (ex != null) {
 				log.log(Level.WARNING, ex, () -> this.logPrefix(transaction) + ", plugin " + pluginId + " with class " +
 						pluginClass.getCanonicalName() + " attachment failed.");
@@ -140,9 +120,6 @@ public class JanusSession {
 			} else {
 				log.log(Level.FINER,
 						() -> this.logPrefix(transaction) + ", plugin " + plugin.toString() + " detached.");
-				if (keepAliveFuture != null) {
-					keepAliveFuture.cancel(false);
-				}
 			}
 		}).thenApply(x -> null);
 	}
@@ -151,12 +128,22 @@ public class JanusSession {
 		return send("keepalive", nextTransactionId(), generator -> {});
 	}
 
-	public void scheduleKeepAlive(ScheduledExecutorService executorService, Duration sessionTimeout) {
-		if (keepAliveFuture != null) {
-			keepAliveFuture.cancel(false);
+	/**
+	 * Returns time of the last request sent for this session (as returned by {@link System#nanoTime()}).
+	 */
+	public long getLastActivity() {
+		return lastActivity;
+	}
+
+	protected void setKeepAliveTimeout(TimingWheel.Timeout keepAliveTimeout) {
+		this.keepAliveTimeout = keepAliveTimeout;
+	}
+
+	protected void cancelKeepAlive() {
+		TimingWheel.Timeout timeout = keepAliveTimeout;
+		if (timeout != null) {
+			timeout.cancel();
 		}
-		long timeout = sessionTimeout.minusSeconds(5).toMillis();
-		keepAliveFuture = executorService.scheduleAtFixedRate(this::keepAlive, timeout, timeout, TimeUnit.MILLISECONDS);
 	}
 
 	public CompletableFuture<Void> destroy() {
@@ -0,0 +1,176 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet.janus;
+
+import tigase.meet.janus.videoroom.JanusVideoRoomPlugin;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pool of Janus sessions prepared in advance on a single Janus server.
+ *
+ * Each pooled session has two handles of the videoroom plugin already attached (one for publishing and one for
+ * subscribing), so joining a meet does not need to wait for creation of a session and attachment of handles.
+ * Pool is refilled in the background by {@link #tick()}, which is expected to be called every second. Number of kept
+ * sessions follows the recent rate of joins (number of sessions needed within the configured horizon) and is kept
+ * between the minimal and maximal size of the pool.
+ */
+public class JanusSessionPool {
+
+	private static final Logger log = Logger.getLogger(JanusSessionPool.class.getCanonicalName());
+
+	// weight of the last second in the smoothed rate of joins
+	private static final double RATE_ALPHA = 0.2;
+
+	private final JanusConnectionPool connectionPool;
+	private final Settings settings;
+	private final ConcurrentLinkedQueue<PooledSession> idle = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger idleCount = new AtomicInteger();
+	private final AtomicInteger pending = new AtomicInteger();
+	private final AtomicInteger joins = new AtomicInteger();
+	private final AtomicInteger nextConnection = new AtomicInteger();
+	private volatile double joinRate = 0;
+	private volatile int targetSize;
+	private volatile boolean closed = false;
+
+	public JanusSessionPool(JanusConnectionPool connectionPool, Settings settings) {
+		this.connectionPool = connectionPool;
+		this.settings = settings;
+		this.targetSize = settings.minSize();
+	}
+
+	/**
+	 * Returns session from the pool or creates a new one if there is no prepared session available.
+	 * @param key used for selection of a connection if a new session needs to be created
+	 */
+	public CompletableFuture<PooledSession> acquire(Object key) {
+		joins.incrementAndGet();
+		PooledSession pooled;
+		while ((pooled = idle.poll()) != null) {
+			idleCount.decrementAndGet();
+			if (pooled.session().getConnection().isConnected()) {
+				PooledSession acquired = pooled;
+				log.log(Level.FINEST, () -> acquired.session().logPrefix() + ", taken from the pool");
+				return CompletableFuture.completedFuture(acquired);
+			}
+		}
+		log.log(Level.FINEST, () -> logPrefix() + ", pool is empty, creating session on demand");
+		return connectionPool.getConnection(key).thenCompose(JanusSessionPool::prepare);
+	}
+
+	/**
+	 * Updates rate of joins and starts creation of sessions missing in the pool.
+	 */
+	public void tick() {
+		updateTargetSize();
+		refill();
+	}
+
+	public int getIdleCount() {
+		return idleCount.get();
+	}
+
+	public int getTargetSize() {
+		return targetSize;
+	}
+
+	public void close() {
+		closed = true;
+		PooledSession pooled;
+		while ((pooled = idle.poll()) != null) {
+			idleCount.decrementAndGet();
+			pooled.session().destroy();
+		}
+	}
+
+	public String logPrefix() {
+		return "session pool " + connectionPool.getUri();
+	}
+
+	protected void updateTargetSize() {
+		double rate = RATE_ALPHA * joins.getAndSet(0) + (1 - RATE_ALPHA) * joinRate;
+		joinRate = rate;
+		long needed = (long) Math.ceil(rate * settings.horizon().toMillis() / 1000.0);
+		targetSize = (int) Math.max(settings.minSize(), Math.min(settings.maxSize(), needed));
+	}
+
+	protected void refill() {
+		if (closed || !connectionPool.isAvailable()) {
+			return;
+		}
+		int missing = targetSize - idleCount.get() - pending.get();
+		for (int i = 0; i < missing; i++) {
+			pending.incrementAndGet();
+			connectionPool.getConnection(nextConnection.getAndIncrement())
+					.thenCompose(JanusSessionPool::prepare)
+					.whenComplete((pooled, ex) -> {
+						pending.decrementAndGet();
+						if (ex != null) {
+							log.log(Level.FINE, ex, () -> logPrefix() + ", failed to prepare session");
+						} else if (closed) {
+							pooled.session().destroy();
+						} else {
+							idle.offer(pooled);
+							idleCount.incrementAndGet();
+						}
+					});
+		}
+	}
+
+	private static CompletableFuture<PooledSession> prepare(JanusConnection connection) {
+		return connection.createSession().thenCompose(session -> {
+			CompletableFuture<JanusVideoRoomPlugin> publisherHandle = session.attachPlugin(JanusVideoRoomPlugin.class);
+			CompletableFuture<JanusVideoRoomPlugin> subscriberHandle = session.attachPlugin(JanusVideoRoomPlugin.class);
+			return publisherHandle.thenCombine(subscriberHandle,
+											   (publisher, subscriber) -> new PooledSession(session, publisher,
+																							subscriber))
+					.whenComplete((pooled, ex) -> {
+						if (ex != null) {
+							session.destroy();
+						}
+					});
+		});
+	}
+
+	@Override
+	public String toString() {
+		return "JanusSessionPool{" + "uri=" + connectionPool.getUri() + ", idle=" + idleCount.get() + ", target=" +
+				targetSize + '}';
+	}
+
+	public record PooledSession(JanusSession session, JanusVideoRoomPlugin publisherHandle,
+								JanusVideoRoomPlugin subscriberHandle) {
+
+	}
+
+	/**
+	 * @param minSize minimal number of sessions kept in the pool
+	 * @param maxSize maximal number of sessions kept in the pool
+	 * @param horizon period of time for which sessions are prepared at the recent rate of joins
+	 */
+	public record Settings(int minSize, int maxSize, Duration horizon) {
+
+		public static final Settings DISABLED = new Settings(0, 0, Duration.ZERO);
+
+	}
+}
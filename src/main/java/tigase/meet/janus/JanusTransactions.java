@@ -0,0 +1,158 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet.janus;
+
+import tigase.meet.utils.TimingWheel;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Registry of transactions awaiting response from Janus over a single connection.
+ *
+ * Each transaction is removed from the registry when its future is completed - by the response, by expiration of its
+ * deadline or by closing of the connection - so no entry is left behind if Janus never responds.
+ */
+public class JanusTransactions {
+
+	private static final Logger log = Logger.getLogger(JanusTransactions.class.getCanonicalName());
+
+	private final String logPrefix;
+	private final TimingWheel timingWheel;
+	private final AtomicLong counter = new AtomicLong();
+	private final ConcurrentHashMap<String, Transaction> pending = new ConcurrentHashMap<>();
+	private final LongAdder expired = new LongAdder();
+
+	public JanusTransactions(String logPrefix, TimingWheel timingWheel) {
+		this.logPrefix = logPrefix;
+		this.timingWheel = timingWheel;
+	}
+
+	public String nextId() {
+		return Long.toString(counter.incrementAndGet(), 36);
+	}
+
+	/**
+	 * Registers transaction completed by a response with the result ("success", "event", etc.).
+	 */
+	public CompletableFuture<JanusMessage> registerExecute(String transaction, String janus, Duration timeout) {
+		return register(transaction, janus, false, timeout);
+	}
+
+	/**
+	 * Registers transaction completed when request is acknowledged by Janus.
+	 */
+	public CompletableFuture<Void> registerSend(String transaction, String janus, Duration timeout) {
+		return register(transaction, janus, true, timeout).thenApply(x -> null);
+	}
+
+	private CompletableFuture<JanusMessage> register(String transaction, String janus, boolean completedByAck,
+													 Duration timeout) {
+		CompletableFuture<JanusMessage> future = new CompletableFuture<>();
+		Transaction entry = new Transaction(janus, completedByAck, future);
+		if (pending.putIfAbsent(transaction, entry) != null) {
+			return CompletableFuture.failedFuture(
+					new IllegalStateException("Transaction " + transaction + " is already registered!"));
+		}
+		entry.timeout = timingWheel.schedule(timeout, () -> expire(transaction, entry, timeout));
+		future.whenComplete((x, ex) -> {
+			pending.remove(transaction, entry);
+			entry.timeout.cancel();
+		});
+		return future;
+	}
+
+	/**
+	 * Completes transaction with the result of the request.
+	 * @return <code>false</code> if there was no matching transaction
+	 */
+	public boolean complete(String transaction, JanusMessage result) {
+		return remove(transaction).map(entry -> entry.future.complete(result)).isPresent();
+	}
+
+	/**
+	 * Completes transaction waiting for acknowledgement.
+	 * @return <code>false</code> if there was no transaction awaiting acknowledgement
+	 */
+	public boolean acknowledge(String transaction) {
+		Transaction entry = pending.get(transaction);
+		if (entry == null || !entry.completedByAck) {
+			return false;
+		}
+		return entry.future.complete(null);
+	}
+
+	public boolean completeExceptionally(String transaction, Throwable ex) {
+		return remove(transaction).map(entry -> entry.future.completeExceptionally(ex)).isPresent();
+	}
+
+	/**
+	 * Fails all pending transactions, ie. when connection was closed.
+	 */
+	public void failAll(Throwable ex) {
+		List<Transaction> entries = new ArrayList<>(pending.values());
+		pending.clear();
+		entries.forEach(entry -> entry.future.completeExceptionally(ex));
+	}
+
+	public int getPendingCount() {
+		return pending.size();
+	}
+
+	public long getExpiredCount() {
+		return expired.sum();
+	}
+
+	private Optional<Transaction> remove(String transaction) {
+		return Optional.ofNullable(pending.remove(transaction));
+	}
+
+	private void expire(String transaction, Transaction entry, Duration timeout) {
+		if (pending.remove(transaction, entry)) {
+			expired.increment();
+			log.log(Level.WARNING, () -> logPrefix + ", transaction " + transaction + ", request " + entry.janus +
+					" expired after " + timeout);
+			entry.future.completeExceptionally(
+					new TimeoutException("Janus did not respond to " + entry.janus + " within " + timeout));
+		}
+	}
+
+	private static class Transaction {
+
+		private final String janus;
+		private final boolean completedByAck;
+		private final CompletableFuture<JanusMessage> future;
+		private volatile TimingWheel.Timeout timeout;
+
+		private Transaction(String janus, boolean completedByAck, CompletableFuture<JanusMessage> future) {
+			this.janus = janus;
+			this.completedByAck = completedByAck;
+			this.future = future;
+		}
+
+	}
+}
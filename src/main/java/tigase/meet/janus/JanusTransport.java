@@ -0,0 +1,44 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet.janus;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Transport used by {@link JanusConnection} to exchange messages with Janus.
+ *
+ * Transport is responsible for framing and decoding of received messages, while the connection is responsible for
+ * ordering of sent messages - <code>send()</code> is never called before the future returned by the previous call
+ * is completed.
+ */
+public interface JanusTransport {
+
+	CompletableFuture<Void> send(String message);
+
+	CompletableFuture<Void> close();
+
+	interface Listener {
+
+		void onMessage(JanusMessage message);
+
+		void onClose(int statusCode, String reason);
+
+		void onError(Throwable error);
+
+	}
+}
@@ -0,0 +1,157 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet.janus;
+
+import org.newsclub.net.unix.AFSocketType;
+import org.newsclub.net.unix.AFUNIXDatagramSocket;
+import org.newsclub.net.unix.AFUNIXSocketAddress;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Transport using Janus <code>pfunix</code> transport for Janus running on the same host
+ * (<code>unix:///path/to/janus.sock</code> URIs).
+ *
+ * Socket is of <code>SOCK_SEQPACKET</code> type (default type of <code>pfunix</code>), so every message is sent and
+ * received as a single packet without any additional framing. JDK supports only stream oriented Unix domain sockets,
+ * so the socket is opened using junixsocket.
+ */
+public class JanusUnixSocketTransport implements JanusTransport {
+
+	public static final String SCHEME = "unix";
+
+	// default max. size of a packet sent by Janus (its send buffer size)
+	private static final int MAX_PACKET_SIZE = 256 * 1024;
+
+	private static final Logger log = Logger.getLogger(JanusUnixSocketTransport.class.getCanonicalName());
+
+	public static CompletableFuture<JanusTransport> connect(URI uri, Listener listener) {
+		JanusUnixSocketTransport transport = new JanusUnixSocketTransport(uri, listener);
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				transport.open();
+				return (JanusTransport) transport;
+			} catch (IOException ex) {
+				transport.writer.shutdown();
+				throw new JanusException(-1, "Could not connect to " + uri + ": " + ex.getMessage());
+			}
+		}, transport.writer);
+	}
+
+	private final URI uri;
+	private final Listener listener;
+	private final JanusMessageDecoder decoder = new JanusMessageDecoder();
+	// blocking writes are done on a separate thread, so sending never blocks the caller
+	private final ExecutorService writer;
+	private AFUNIXDatagramSocket socket;
+	private volatile boolean closing = false;
+
+	private JanusUnixSocketTransport(URI uri, Listener listener) {
+		this.uri = uri;
+		this.listener = listener;
+		this.writer = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "janus-unix-writer");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@Override
+	public CompletableFuture<Void> send(String message) {
+		return CompletableFuture.runAsync(() -> {
+			try {
+				byte[] data = message.getBytes(StandardCharsets.UTF_8);
+				socket.send(new DatagramPacket(data, data.length));
+			} catch (IOException ex) {
+				throw new JanusException(-1, "Could not send message to " + uri + ": " + ex.getMessage());
+			}
+		}, writer);
+	}
+
+	@Override
+	public CompletableFuture<Void> close() {
+		closing = true;
+		try {
+			socket.close();
+		} finally {
+			writer.shutdown();
+		}
+		return CompletableFuture.completedFuture(null);
+	}
+
+	private void open() throws IOException {
+		socket = AFUNIXDatagramSocket.newInstance(AFSocketType.SOCK_SEQPACKET);
+		try {
+			socket.connect(AFUNIXSocketAddress.of(new File(uri.getPath())));
+		} catch (IOException ex) {
+			socket.close();
+			throw ex;
+		}
+		Thread reader = new Thread(this::read, "janus-unix-reader");
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	private void read() {
+		byte[] buffer = new byte[MAX_PACKET_SIZE];
+		DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+		try {
+			while (true) {
+				packet.setLength(buffer.length);
+				socket.receive(packet);
+				if (packet.getLength() == buffer.length) {
+					// rest of the packet was discarded by the socket
+					log.log(Level.WARNING, () -> "received packet exceeding " + buffer.length + " bytes from " + uri + ", dropping it");
+					continue;
+				}
+				JanusMessage message;
+				try {
+					message = decoder.feed(buffer, 0, packet.getLength(), true);
+				} catch (IOException ex) {
+					log.log(Level.WARNING, ex, () -> "JSON decoding failed!");
+					continue;
+				}
+				listener.onMessage(message);
+			}
+		} catch (SocketTimeoutException ex) {
+			// no timeout is set, so this is how end of the connection is reported for SOCK_SEQPACKET
+			listener.onClose(1000, "closed by server");
+		} catch (IOException ex) {
+			if (closing) {
+				listener.onClose(1000, "closed");
+			} else {
+				listener.onError(ex);
+			}
+		} finally {
+			writer.shutdown();
+			if (!closing) {
+				socket.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet.janus;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Transport using Janus WebSocket API (<code>ws://</code> and <code>wss://</code> URIs).
+ */
+public class JanusWebSocketTransport implements JanusTransport, WebSocket.Listener {
+
+	private static final Logger log = Logger.getLogger(JanusWebSocketTransport.class.getCanonicalName());
+
+	public static CompletableFuture<JanusTransport> connect(HttpClient client, URI uri, Listener listener) {
+		JanusWebSocketTransport transport = new JanusWebSocketTransport(listener);
+		return client.newWebSocketBuilder()
+				.subprotocols("janus-protocol")
+				.buildAsync(uri, transport)
+				.thenApply(webSocket -> {
+					transport.webSocket = webSocket;
+					return transport;
+				});
+	}
+
+	private final Listener listener;
+	private final JanusMessageDecoder decoder = new JanusMessageDecoder();
+	private volatile WebSocket webSocket;
+
+	private JanusWebSocketTransport(Listener listener) {
+		this.listener = listener;
+	}
+
+	@Override
+	public CompletableFuture<Void> send(String message) {
+		return webSocket.sendText(message, true).thenApply(ws -> null);
+	}
+
+	@Override
+	public CompletableFuture<Void> close() {
+		return webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "ok").thenApply(ws -> null);
+	}
+
+	@Override
+	public void onOpen(WebSocket webSocket) {
+		webSocket.request(1);
+	}
+
+	@Override
+	public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+		webSocket.request(1);
+		listener.onClose(statusCode, reason);
+		return null;
+	}
+
+	@Override
+	public void onError(WebSocket webSocket, Throwable error) {
+		webSocket.request(1);
+		listener.onError(error);
+	}
+
+	@Override
+	public CompletionStage<?> onBinary(WebSocket webSocket, ByteBuffer data, boolean last) {
+		log.log(Level.FINEST, () -> "received binary: " + data);
+		webSocket.request(1);
+		return null;
+	}
+
+	@Override
+	public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+		JanusMessage message;
+		try {
+			message = decoder.feed(data, last);
+		} catch (Throwable e) {
+			log.log(Level.WARNING, e, () -> "JSON decoding failed!");
+			message = null;
+		}
+		webSocket.request(1);
+		if (message != null) {
+			listener.onMessage(message);
+		}
+		return null;
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet.janus;
+
+import tigase.kernel.beans.Bean;
+import tigase.kernel.beans.config.ConfigField;
+import tigase.meet.MeetComponent;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Default placement strategy, selecting server with the lowest weighted sum of rooms, handles and participants
+ * counts and of measured round trip time of requests.
+ */
+@Bean(name = "janusPlacementStrategy", parent = MeetComponent.class, active = true)
+public class LeastLoadedJanusPlacementStrategy implements IJanusPlacementStrategy {
+
+	private static final Logger log = Logger.getLogger(LeastLoadedJanusPlacementStrategy.class.getCanonicalName());
+
+	@ConfigField(desc = "Weight of a single room", alias = "room-weight")
+	private double roomWeight = 10;
+	@ConfigField(desc = "Weight of a single attached handle", alias = "handle-weight")
+	private double handleWeight = 1;
+	@ConfigField(desc = "Weight of a single participant", alias = "participant-weight")
+	private double participantWeight = 4;
+	@ConfigField(desc = "Weight of a millisecond of requests round trip time", alias = "rtt-weight")
+	private double rttWeight = 2;
+
+	@Override
+	public JanusConnectionPool select(List<ServerLoad> servers) {
+		if (servers.size() == 1) {
+			return servers.get(0).server();
+		}
+		ServerLoad selected = servers.stream().min(Comparator.comparingDouble(this::score)).orElseThrow();
+		log.log(Level.FINEST, () -> "selected server " + selected.server().getUri() + " with score " + score(selected));
+		return selected.server();
+	}
+
+	protected double score(ServerLoad load) {
+		long rtt = load.roundTripTime();
+		double rttMillis = rtt < 0 ? 0 : ((double) rtt) / TimeUnit.MILLISECONDS.toNanos(1);
+		return load.rooms() * roomWeight + load.handles() * handleWeight + load.participants() * participantWeight +
+				rttMillis * rttWeight;
+	}
+
+}
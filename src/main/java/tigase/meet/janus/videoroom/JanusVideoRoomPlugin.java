@@ -69,7 +69,26 @@ public class JanusVideoRoomPlugin extends JanusPlugin<JanusVideoRoomPlugin.Conte
 		}
 	}
 
+	@Override
+	protected void receivedCandidatesCompleted() {
+		if (localPublisher != null) {
+			localPublisher.receivedCandidatesCompleted();
+		}
+		if (localSubscriber != null) {
+			localSubscriber.receivedCandidatesCompleted();
+		}
+	}
+
 	public CompletableFuture<Object> createRoom(Object roomId, int maxNoOfPublishers, String videoCodec) {
+		return createRoom(roomId, maxNoOfPublishers, videoCodec, false, 0);
+	}
+
+	/**
+	 * Creates a room, if <code>audioLevelEvents</code> is set, participants will be notified when publishers start
+	 * and stop talking.
+	 * @param bitrate default max. bitrate of publishers in bits per second (0 for Janus default)
+	 */
+	public CompletableFuture<Object> createRoom(Object roomId, int maxNoOfPublishers, String videoCodec, boolean audioLevelEvents, long bitrate) {
 		String transaction = getSession().nextTransactionId();
 		log.log(Level.FINER, () -> toString() + ", transaction " + transaction + " creating room " + roomId + "...");
 		return execute("create", transaction, roomId, generator -> {
@@ -78,6 +97,12 @@ public class JanusVideoRoomPlugin extends JanusPlugin<JanusVideoRoomPlugin.Conte
 				generator.writeStringField("videocodec", videoCodec);
 			}
 			generator.writeBooleanField("notify_joining", true);
+			if (audioLevelEvents) {
+				generator.writeBooleanField("audiolevel_event", true);
+			}
+			if (bitrate > 0) {
+				generator.writeNumberField("bitrate", bitrate);
+			}
 		}, null).thenApply(content -> {
 			String videoroom = content.getVideoRoom();
 			switch (videoroom) {
@@ -116,16 +141,28 @@ public class JanusVideoRoomPlugin extends JanusPlugin<JanusVideoRoomPlugin.Conte
 	}
 
 	public CompletableFuture<LocalPublisher> createPublisher(Object roomId, String displayName) {
+		return createPublisher(roomId, displayName, null);
+	}
+
+	/**
+	 * Joins room as a publisher. If <code>offer</code> is passed, it is published while joining
+	 * (<code>joinandconfigure</code>) and answer is kept by {@link LocalPublisher} until the same offer is published.
+	 */
+	public CompletableFuture<LocalPublisher> createPublisher(Object roomId, String displayName, JSEP offer) {
 		String transaction = getSession().nextTransactionId();
 		log.log(Level.FINER, () -> toString() + ", transaction " + transaction + ", joining as publisher..");
-		return execute("join", transaction, roomId, generator -> {
+		return execute(offer == null ? "join" : "joinandconfigure", transaction, roomId, generator -> {
 			generator.writeStringField("ptype", "publisher");
 			if (displayName != null) {
 				generator.writeStringField("display", displayName);
 			}
-		}, null).thenApply(data -> {
+		}, offer).thenApply(data -> {
 			if ("joined".equals(data.getVideoRoom())) {
-				return LocalPublisher.fromData(data.data, this, roomId);
+				LocalPublisher publisher = LocalPublisher.fromData(data.data, this, roomId);
+				if (offer != null) {
+					publisher.joinedWith(offer, data.jsep);
+				}
+				return publisher;
 			} else {
 				throw new UnsupportedOperationException("Unexpected response: " + data);
 			}
@@ -0,0 +1,126 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet.janus.videoroom;
+
+import java.util.*;
+
+/**
+ * Selects publishers whose video is forwarded to a subscriber: pinned publishers and <code>lastN</code> publishers
+ * which were talking most recently (publishers which were not talking yet are ordered by time of joining).
+ *
+ * Each method returns changes of the selection, which should be applied to the subscriber.
+ */
+public class LastNSelector {
+
+	private final int lastN;
+	// most recent speaker first
+	private final LinkedList<Long> speakers = new LinkedList<>();
+	private final Set<Long> pinned = new HashSet<>();
+	private final LinkedHashSet<Long> selected = new LinkedHashSet<>();
+
+	public LastNSelector(int lastN) {
+		if (lastN < 1) {
+			throw new IllegalArgumentException("Number of forwarded videos must be greater than 0!");
+		}
+		this.lastN = lastN;
+	}
+
+	public synchronized Changes added(long feedId) {
+		if (!speakers.contains(feedId)) {
+			speakers.addLast(feedId);
+		}
+		return update();
+	}
+
+	/**
+	 * Removes publisher which left, returned changes do not contain the removed publisher.
+	 */
+	public synchronized Changes removed(long feedId) {
+		speakers.remove(feedId);
+		pinned.remove(feedId);
+		selected.remove(feedId);
+		return update();
+	}
+
+	public synchronized Changes talking(long feedId) {
+		if (!speakers.remove(feedId)) {
+			return Changes.NONE;
+		}
+		speakers.addFirst(feedId);
+		return update();
+	}
+
+	/**
+	 * Replaces pinned publishers with passed publishers.
+	 */
+	public synchronized Changes setPinned(Collection<Long> feedIds) {
+		pinned.clear();
+		for (Long feedId : feedIds) {
+			if (speakers.contains(feedId)) {
+				pinned.add(feedId);
+			}
+		}
+		return update();
+	}
+
+	public synchronized boolean isSelected(long feedId) {
+		return selected.contains(feedId);
+	}
+
+	public synchronized Set<Long> getSelected() {
+		return new HashSet<>(selected);
+	}
+
+	private Changes update() {
+		LinkedHashSet<Long> target = new LinkedHashSet<>(pinned);
+		int unpinned = 0;
+		for (Long feedId : speakers) {
+			if (unpinned >= lastN) {
+				break;
+			}
+			if (!pinned.contains(feedId)) {
+				target.add(feedId);
+				unpinned++;
+			}
+		}
+		List<Long> added = new ArrayList<>();
+		for (Long feedId : target) {
+			if (!selected.contains(feedId)) {
+				added.add(feedId);
+			}
+		}
+		List<Long> removed = new ArrayList<>();
+		for (Long feedId : selected) {
+			if (!target.contains(feedId)) {
+				removed.add(feedId);
+			}
+		}
+		if (added.isEmpty() && removed.isEmpty()) {
+			return Changes.NONE;
+		}
+		selected.removeAll(removed);
+		selected.addAll(added);
+		return new Changes(added, removed);
+	}
+
+	public record Changes(List<Long> added, List<Long> removed) {
+
+		public static final Changes NONE = new Changes(Collections.emptyList(), Collections.emptyList());
+
+	}
+}
@@ -56,6 +56,9 @@ public class LocalPublisher {
 
 	private final ConcurrentHashMap<Long, Publisher> publishers = new ConcurrentHashMap<>();
 	private Listener listener;
+	// offer published while joining the room and answer to it, cleared when it is published
+	private JSEP joinOffer;
+	private JSEP joinAnswer;
 
 	public LocalPublisher(JanusVideoRoomPlugin videoRoomPlugin, Object roomId, long id, long privateId,
 						  List<Publisher> publishers) {
@@ -89,6 +92,11 @@ public class LocalPublisher {
 		}
 	}
 
+	protected synchronized void joinedWith(JSEP offer, JSEP answer) {
+		this.joinOffer = offer;
+		this.joinAnswer = answer;
+	}
+
 	public CompletableFuture<Void> leave() {
 		String transaction = videoRoomPlugin.getSession().nextTransactionId();
 		log.log(Level.FINER,
@@ -118,6 +126,12 @@ public class LocalPublisher {
 	}
 
 	public CompletableFuture<JSEP> publish(JSEP jsep) {
+		JSEP answer = takeJoinAnswer(jsep);
+		if (answer != null) {
+			log.log(Level.FINER, () -> toString() + ", publisher " + id + " stream already published while joining.");
+			listener.receivedPublisherSDP(answer);
+			return CompletableFuture.completedFuture(answer);
+		}
 		String transaction = videoRoomPlugin.getSession().nextTransactionId();
 		log.log(Level.FINER,
 				() -> toString() + ", transaction " + transaction + ", publisher " + id + " publishes stream..");
@@ -142,6 +156,37 @@ public class LocalPublisher {
 		});
 	}
 
+	private synchronized JSEP takeJoinAnswer(JSEP offer) {
+		if (joinAnswer == null || !joinOffer.isSameAs(offer)) {
+			return null;
+		}
+		JSEP answer = joinAnswer;
+		joinOffer = null;
+		joinAnswer = null;
+		return answer;
+	}
+
+	/**
+	 * Changes max. bitrate of the published video.
+	 * @param bitrate bitrate in bits per second (0 for no limit)
+	 */
+	public CompletableFuture<Void> configureBitrate(long bitrate) {
+		String transaction = videoRoomPlugin.getSession().nextTransactionId();
+		log.log(Level.FINER,
+				() -> toString() + ", transaction " + transaction + ", publisher " + id + " setting bitrate " + bitrate + "..");
+		return videoRoomPlugin.execute("configure", transaction, null, generator -> {
+			generator.writeNumberField("bitrate", bitrate);
+		}, null).thenApply(content -> (Void) null).whenComplete((x, ex) -> {
+			if (ex != null) {
+				log.log(Level.WARNING, ex, () -> toString() + ", transaction " + transaction + ", publisher " + id +
+						" failed to set bitrate!");
+			} else {
+				log.log(Level.FINER,
+						() -> toString() + ", transaction " + transaction + ", publisher " + id + " bitrate set.");
+			}
+		});
+	}
+
 	public CompletableFuture<Void> unpublish() {
 		String transaction = videoRoomPlugin.getSession().nextTransactionId();
 		log.log(Level.FINER,
@@ -166,7 +211,12 @@ public class LocalPublisher {
 
 	public void handleEvent(JanusVideoRoomPlugin.Content content) {
 		log.finest(() -> "received event for room " + content.getRoom() + ", with data: " + content.data);
-		if ("event".equals(content.getVideoRoom()) && roomId.equals(content.getRoom())) {
+		String videoroom = content.getVideoRoom();
+		if (("talking".equals(videoroom) || "stopped-talking".equals(videoroom)) && roomId.equals(content.getRoom())) {
+			if (listener != null && content.data.get("id") instanceof Number publisherId) {
+				listener.publisherTalking(publisherId.longValue(), "talking".equals(videoroom));
+			}
+		} else if ("event".equals(videoroom) && roomId.equals(content.getRoom())) {
 			List<Publisher> publishers = Publisher.fromEvent(
 					(List<Map<String, Object>>) content.data.get("publishers"));
 			if (publishers != null) {
@@ -194,17 +244,25 @@ public class LocalPublisher {
 		return publishers.values();
 	}
 
+	public Publisher getPublisher(long publisherId) {
+		return publishers.get(publisherId);
+	}
+
 	public CompletableFuture<Void> sendCandidate(JanusPlugin.Candidate candidate) {
+		return sendCandidates(List.of(candidate));
+	}
+
+	public CompletableFuture<Void> sendCandidates(List<JanusPlugin.Candidate> candidates) {
 		String transaction = videoRoomPlugin.getSession().nextTransactionId();
 		log.log(Level.FINER, () -> toString() + ", transaction " + transaction +
-				", sending candidate " + candidate + "..");
-		return videoRoomPlugin.sendTrickle(transaction, candidate).whenComplete((x, ex) -> {
+				", sending candidates " + candidates + "..");
+		return videoRoomPlugin.sendTrickle(transaction, candidates).whenComplete((x, ex) -> {
 			if (ex != null) {
 				log.log(Level.WARNING, ex, () -> toString() + ", transaction " + transaction +
-						", failed to send candidate!");
+						", failed to send candidates!");
 			} else {
 				log.log(Level.FINER, () -> toString() + ", transaction " + transaction +
-						", candidate sent.");
+						", candidates sent.");
 			}
 		});
 	}
@@ -213,6 +271,10 @@ public class LocalPublisher {
 		listener.receivedPublisherCandidate(candidate);
 	}
 
+	public void receivedCandidatesCompleted() {
+		listener.receivedPublisherCandidatesCompleted();
+	}
+
 	public interface Listener {
 
 		void addedPublishers(Collection<Publisher> publishers);
@@ -223,5 +285,9 @@ public class LocalPublisher {
 
 		void receivedPublisherCandidate(JanusPlugin.Candidate candidate);
 
+		void receivedPublisherCandidatesCompleted();
+
+		void publisherTalking(long publisherId, boolean talking);
+
 	}
 }
@@ -21,10 +21,12 @@ import tigase.meet.janus.JSEP;
 import tigase.meet.janus.JanusPlugin;
 import tigase.meet.janus.JanusSession;
 
-import java.util.List;
+import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 public class LocalSubscriber {
 
@@ -35,6 +37,8 @@ public class LocalSubscriber {
 
 	private boolean subscribed = false;
 	private Listener listener;
+	// streams of the subscriber session by their mid
+	private final ConcurrentHashMap<String, SubscribedStream> streams = new ConcurrentHashMap<>();
 
 	public LocalSubscriber(JanusVideoRoomPlugin videoRoomPlugin, Object roomId) {
 		this.videoRoomPlugin = videoRoomPlugin;
@@ -64,6 +68,7 @@ public class LocalSubscriber {
 			generator.writeEndArray();
 		}, null).thenApply(content -> {
 			subscribed = true;
+			updateStreams(content);
 			log.log(Level.FINER, () -> toString() + " updated subscribed streams: " + content.data.get("streams"));
 			return content.jsep;
 		}).whenComplete((x, ex) -> {
@@ -111,6 +116,141 @@ public class LocalSubscriber {
 		});
 	}
 
+	/**
+	 * Subscribes and unsubscribes streams in a single request, causing a single renegotiation.
+	 */
+	public CompletableFuture<JSEP> update(List<JanusVideoRoomPlugin.Stream> subscribe,
+										  List<JanusVideoRoomPlugin.Stream> unsubscribe) {
+		if (!subscribed) {
+			if (subscribe.isEmpty()) {
+				return CompletableFuture.completedFuture(null);
+			}
+			return subscribe(subscribe);
+		}
+		String transaction = videoRoomPlugin.getSession().nextTransactionId();
+		log.log(Level.FINER, () -> toString() + ", transaction " + transaction +
+				", updating streams, subscribe: " + subscribe + ", unsubscribe: " + unsubscribe + "..");
+		return videoRoomPlugin.execute("update", transaction, null, generator -> {
+			if (!subscribe.isEmpty()) {
+				generator.writeFieldName("subscribe");
+				generator.writeStartArray();
+				for (JanusVideoRoomPlugin.Stream stream : subscribe) {
+					stream.write(generator);
+				}
+				generator.writeEndArray();
+			}
+			if (!unsubscribe.isEmpty()) {
+				generator.writeFieldName("unsubscribe");
+				generator.writeStartArray();
+				for (JanusVideoRoomPlugin.Stream stream : unsubscribe) {
+					stream.write(generator);
+				}
+				generator.writeEndArray();
+			}
+		}, null).thenApply(content -> {
+			updateStreams(content);
+			return content.jsep;
+		}).whenComplete((x, ex) -> {
+			if (ex != null) {
+				log.log(Level.WARNING, ex, () -> toString() + ", transaction " + transaction +
+						", failed to update streams!");
+			} else {
+				log.log(Level.FINER, () -> toString() + ", transaction " + transaction +
+						", updated streams.");
+				if (x != null) {
+					listener.receivedSubscriberSDP(x);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Switches video streams of the subscriber session forwarding video of <code>fromFeed</code> to forward passed
+	 * streams instead, without renegotiation.
+	 * @return switched streams of the subscriber session
+	 */
+	public CompletableFuture<List<SwitchedStream>> switchVideo(long fromFeed,
+																			 List<JanusVideoRoomPlugin.Stream> to) {
+		List<SubscribedStream> slots = streams.values()
+				.stream()
+				.filter(stream -> stream.feedId() == fromFeed && "video".equals(stream.type()))
+				.sorted(Comparator.comparing(SubscribedStream::mid))
+				.collect(Collectors.toList());
+		if (slots.isEmpty() || to.isEmpty()) {
+			return CompletableFuture.failedFuture(
+					new IllegalStateException("No video of feed " + fromFeed + " to switch from"));
+		}
+		int count = Math.min(slots.size(), to.size());
+		String transaction = videoRoomPlugin.getSession().nextTransactionId();
+		log.log(Level.FINER, () -> toString() + ", transaction " + transaction +
+				", switching video of feed " + fromFeed + " to " + to + "..");
+		return videoRoomPlugin.execute("switch", transaction, null, generator -> {
+			generator.writeFieldName("streams");
+			generator.writeStartArray();
+			for (int i = 0; i < count; i++) {
+				generator.writeStartObject();
+				generator.writeNumberField("feed", to.get(i).getFeed());
+				generator.writeStringField("mid", to.get(i).mid);
+				generator.writeStringField("sub_mid", slots.get(i).mid());
+				generator.writeEndObject();
+			}
+			generator.writeEndArray();
+		}, null).thenApply(content -> {
+			List<SwitchedStream> switched = new ArrayList<>();
+			for (int i = 0; i < count; i++) {
+				SubscribedStream slot = slots.get(i);
+				switched.add(new SwitchedStream(slot.mid(), new JanusVideoRoomPlugin.Stream(slot.feedId(), slot.feedMid()),
+												to.get(i)));
+				streams.put(slot.mid(), new SubscribedStream(slot.mid(), to.get(i).getFeed(), to.get(i).mid,
+															 slot.type()));
+			}
+			updateStreams(content);
+			return switched;
+		}).whenComplete((x, ex) -> {
+			if (ex != null) {
+				log.log(Level.FINE, ex, () -> toString() + ", transaction " + transaction +
+						", failed to switch video of feed " + fromFeed + "!");
+			} else {
+				log.log(Level.FINER, () -> toString() + ", transaction " + transaction +
+						", switched video of feed " + fromFeed + ".");
+			}
+		});
+	}
+
+	/**
+	 * Selects simulcast substream or SVC spatial layer (and optionally temporal layer) forwarded for each stream.
+	 */
+	public CompletableFuture<Void> configureLayers(List<StreamLayers> layers) {
+		String transaction = videoRoomPlugin.getSession().nextTransactionId();
+		log.log(Level.FINER, () -> toString() + ", transaction " + transaction +
+				", configuring layers " + layers + "..");
+		return videoRoomPlugin.execute("configure", transaction, null, generator -> {
+			generator.writeFieldName("streams");
+			generator.writeStartArray();
+			for (StreamLayers stream : layers) {
+				generator.writeStartObject();
+				generator.writeStringField("mid", stream.mid());
+				// Janus uses only fields matching codec of the stream (simulcast or SVC)
+				generator.writeNumberField("substream", stream.quality().ordinal());
+				generator.writeNumberField("spatial_layer", stream.quality().ordinal());
+				if (stream.temporal() != null) {
+					generator.writeNumberField("temporal", stream.temporal());
+					generator.writeNumberField("temporal_layer", stream.temporal());
+				}
+				generator.writeEndObject();
+			}
+			generator.writeEndArray();
+		}, null).thenApply(content -> (Void) null).whenComplete((x, ex) -> {
+			if (ex != null) {
+				log.log(Level.WARNING, ex, () -> toString() + ", transaction " + transaction +
+						", failed to configure layers!");
+			} else {
+				log.log(Level.FINER, () -> toString() + ", transaction " + transaction +
+						", layers configured.");
+			}
+		});
+	}
+
 	public CompletableFuture<JSEP> unsubscribe(long publisherId) {
 		String transaction = videoRoomPlugin.getSession().nextTransactionId();
 		log.log(Level.FINER, () -> toString() + ", transaction " + transaction +
@@ -157,16 +297,20 @@ public class LocalSubscriber {
 	}
 
 	public CompletableFuture<Void> sendCandidate(JanusPlugin.Candidate candidate) {
+		return sendCandidates(List.of(candidate));
+	}
+
+	public CompletableFuture<Void> sendCandidates(List<JanusPlugin.Candidate> candidates) {
 		String transaction = videoRoomPlugin.getSession().nextTransactionId();
 		log.log(Level.FINER, () -> toString() + ", transaction " + transaction +
-				", sending candidate " + candidate + "..");
-		return videoRoomPlugin.sendTrickle(transaction, candidate).whenComplete((x, ex) -> {
+				", sending candidates " + candidates + "..");
+		return videoRoomPlugin.sendTrickle(transaction, candidates).whenComplete((x, ex) -> {
 			if (ex != null) {
 				log.log(Level.WARNING, ex, () -> toString() + ", transaction " + transaction +
-						", failed to send candidate!");
+						", failed to send candidates!");
 			} else {
 				log.log(Level.FINER, () -> toString() + ", transaction " + transaction +
-						", candidate sent.");
+						", candidates sent.");
 			}
 		});
 	}
@@ -174,25 +318,75 @@ public class LocalSubscriber {
 	public void handleEvent(JanusVideoRoomPlugin.Content content) {
 		if ("updated".equals(content.getVideoRoom()) && content.data.containsKey("streams")) {
 			log.log(Level.FINEST, () -> toString() + " updated subscribed streams: " + content.data.get("streams") + ", jsep: " + content.jsep);
+			updateStreams(content);
 			if (content.jsep != null) {
 				listener.receivedSubscriberSDP(content.jsep);
 			}
 		}
 	}
 
+	private void updateStreams(JanusVideoRoomPlugin.Content content) {
+		Object list = content.data.get("streams");
+		if (!(list instanceof List)) {
+			return;
+		}
+		Map<String, SubscribedStream> current = new HashMap<>();
+		for (Object item : (List<?>) list) {
+			if (item instanceof Map<?, ?> data && data.get("mid") instanceof String mid &&
+					data.get("feed_id") instanceof Number feedId) {
+				current.put(mid, new SubscribedStream(mid, feedId.longValue(), (String) data.get("feed_mid"),
+													  (String) data.get("type")));
+			}
+		}
+		streams.keySet().retainAll(current.keySet());
+		streams.putAll(current);
+	}
+
 	public void receivedCandidate(JanusPlugin.Candidate candidate) {
 		listener.receivedSubscriberCandidate(candidate);
 	}
 
+	public void receivedCandidatesCompleted() {
+		listener.receivedSubscriberCandidatesCompleted();
+	}
+
 	public void setListener(Listener listener) {
 		this.listener = listener;
 	}
 
+	public enum Quality {
+		low,
+		medium,
+		high
+	}
+
+	/**
+	 * Layers forwarded for the stream with <code>mid</code> of the subscriber session.
+	 * @param temporal temporal layer or <code>null</code> for all temporal layers
+	 */
+	public record StreamLayers(String mid, Quality quality, Integer temporal) {
+
+	}
+
+	/**
+	 * Stream of the subscriber session with <code>mid</code>, which forwarded <code>from</code> stream before the switch
+	 * and forwards <code>to</code> stream now.
+	 */
+	public record SwitchedStream(String mid, JanusVideoRoomPlugin.Stream from, JanusVideoRoomPlugin.Stream to) {
+
+	}
+
+	private record SubscribedStream(String mid, long feedId, String feedMid, String type) {
+
+	}
+
 	public interface Listener {
 
 		void receivedSubscriberSDP(JSEP jsep);
 
 		void receivedSubscriberCandidate(JanusPlugin.Candidate candidate);
 
+		void receivedSubscriberCandidatesCompleted();
+
 	}
 }
@@ -0,0 +1,184 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet.janus.videoroom;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Collects changes of subscribed streams over a short window and sends them to Janus as a single update.
+ *
+ * Without it, each join or leave of a publisher would cause a separate request to Janus and separate renegotiation
+ * of the subscriber session. Only one update is sent at a time, changes made while it is in progress are sent in
+ * the next one. Subscription of a feed which was not sent yet is dropped if the feed leaves within the window.
+ * Streams of a failed update are not considered subscribed.
+ */
+public class SubscriptionCoalescer {
+
+	private static final Logger log = Logger.getLogger(SubscriptionCoalescer.class.getCanonicalName());
+
+	private final Updater updater;
+	private final Executor delayedExecutor;
+
+	private final LinkedHashMap<Long, List<JanusVideoRoomPlugin.Stream>> toSubscribe = new LinkedHashMap<>();
+	private final List<JanusVideoRoomPlugin.Stream> toUnsubscribe = new ArrayList<>();
+	// mids of streams of feeds for which subscription was sent to Janus
+	private final HashMap<Long, Set<String>> subscribed = new HashMap<>();
+	private boolean scheduled = false;
+	private boolean updating = false;
+	private boolean closed = false;
+
+	public SubscriptionCoalescer(Duration window, Updater updater) {
+		this.updater = updater;
+		this.delayedExecutor = CompletableFuture.delayedExecutor(window.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	public synchronized void subscribe(Collection<JanusVideoRoomPlugin.Stream> streams) {
+		for (JanusVideoRoomPlugin.Stream stream : streams) {
+			toSubscribe.computeIfAbsent(stream.getFeed(), feed -> new ArrayList<>()).add(stream);
+		}
+		schedule();
+	}
+
+	public synchronized void unsubscribe(long feedId) {
+		toSubscribe.remove(feedId);
+		if (subscribed.remove(feedId) != null) {
+			toUnsubscribe.add(new JanusVideoRoomPlugin.Stream(feedId, null));
+		}
+		schedule();
+	}
+
+	public synchronized void unsubscribe(Collection<JanusVideoRoomPlugin.Stream> streams) {
+		for (JanusVideoRoomPlugin.Stream stream : streams) {
+			List<JanusVideoRoomPlugin.Stream> pending = toSubscribe.get(stream.getFeed());
+			if (pending != null) {
+				pending.removeIf(it -> Objects.equals(it.mid, stream.mid));
+				if (pending.isEmpty()) {
+					toSubscribe.remove(stream.getFeed());
+				}
+			}
+			Set<String> mids = subscribed.get(stream.getFeed());
+			if (mids != null && mids.remove(stream.mid)) {
+				toUnsubscribe.add(stream);
+				if (mids.isEmpty()) {
+					subscribed.remove(stream.getFeed());
+				}
+			}
+		}
+		schedule();
+	}
+
+	/**
+	 * Records that subscribed streams were switched to other streams in place (without renegotiation).
+	 */
+	public synchronized void switched(Collection<JanusVideoRoomPlugin.Stream> from,
+									  Collection<JanusVideoRoomPlugin.Stream> to) {
+		for (JanusVideoRoomPlugin.Stream stream : from) {
+			Set<String> mids = subscribed.get(stream.getFeed());
+			if (mids != null && mids.remove(stream.mid) && mids.isEmpty()) {
+				subscribed.remove(stream.getFeed());
+			}
+		}
+		for (JanusVideoRoomPlugin.Stream stream : to) {
+			subscribed.computeIfAbsent(stream.getFeed(), feed -> new HashSet<>()).add(stream.mid);
+		}
+	}
+
+	public synchronized boolean hasPendingChanges() {
+		return !(toSubscribe.isEmpty() && toUnsubscribe.isEmpty());
+	}
+
+	/**
+	 * Drops pending changes and stops sending updates, ie. when subscriber session is being destroyed.
+	 */
+	public synchronized void close() {
+		closed = true;
+		toSubscribe.clear();
+		toUnsubscribe.clear();
+	}
+
+	private void schedule() {
+		if (closed || scheduled || updating || !hasPendingChanges()) {
+			return;
+		}
+		scheduled = true;
+		delayedExecutor.execute(this::flush);
+	}
+
+	private void flush() {
+		List<JanusVideoRoomPlugin.Stream> subscribe = new ArrayList<>();
+		List<JanusVideoRoomPlugin.Stream> unsubscribe = new ArrayList<>();
+		synchronized (this) {
+			scheduled = false;
+			if (closed || updating || !hasPendingChanges()) {
+				return;
+			}
+			unsubscribe.addAll(toUnsubscribe);
+			for (Map.Entry<Long, List<JanusVideoRoomPlugin.Stream>> e : toSubscribe.entrySet()) {
+				subscribe.addAll(e.getValue());
+				Set<String> mids = subscribed.computeIfAbsent(e.getKey(), feed -> new HashSet<>());
+				e.getValue().forEach(stream -> mids.add(stream.mid));
+			}
+			toUnsubscribe.clear();
+			toSubscribe.clear();
+			updating = true;
+		}
+		log.log(Level.FINEST, () -> "sending update, subscribe: " + subscribe.size() + " streams, unsubscribe: " +
+				unsubscribe.size() + " streams");
+		CompletableFuture<?> future;
+		try {
+			future = updater.update(subscribe, unsubscribe);
+		} catch (Throwable ex) {
+			future = CompletableFuture.failedFuture(ex);
+		}
+		future.whenComplete((x, ex) -> {
+			synchronized (this) {
+				if (ex != null) {
+					log.log(Level.FINE, ex, () -> "update failed, subscribe: " + subscribe.size() + " streams");
+					rollback(subscribe);
+				}
+				updating = false;
+				schedule();
+			}
+		});
+	}
+
+	private void rollback(List<JanusVideoRoomPlugin.Stream> subscribe) {
+		for (JanusVideoRoomPlugin.Stream stream : subscribe) {
+			Set<String> mids = subscribed.get(stream.getFeed());
+			if (mids != null && mids.remove(stream.mid) && mids.isEmpty()) {
+				subscribed.remove(stream.getFeed());
+			}
+			// stream was not subscribed, so there is nothing to unsubscribe
+			toUnsubscribe.removeIf(it -> it.getFeed() == stream.getFeed() && Objects.equals(it.mid, stream.mid));
+		}
+	}
+
+	@FunctionalInterface
+	public interface Updater {
+
+		CompletableFuture<?> update(List<JanusVideoRoomPlugin.Stream> subscribe,
+									List<JanusVideoRoomPlugin.Stream> unsubscribe);
+
+	}
+}
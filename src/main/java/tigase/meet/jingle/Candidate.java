@@ -59,7 +59,11 @@ public class Candidate {
 
 	public static Candidate from(String line) {
 		int idx = "candidate:".length() + (line.startsWith("a=") ? 2 : 0);
-		String[] parts = line.substring(idx).split(" ");
+		return fromAttribute(line.substring(idx));
+	}
+
+	static Candidate fromAttribute(String value) {
+		String[] parts = value.split(" ");
 		if (parts.length >= 8) {
 			ProtocolType protocolType = ProtocolType.valueOf(parts[2].toLowerCase());
 			int priority = Integer.parseInt(parts[3]);
@@ -209,8 +213,11 @@ public class Candidate {
 	}
 
 	public String toSDP() {
+		return appendSDP(new StringBuilder()).toString();
+	}
+
+	StringBuilder appendSDP(StringBuilder sb) {
 		CandidateType type = this.type.orElse(CandidateType.host);
-		StringBuilder sb = new StringBuilder();
 		sb.append("candidate:")
 				.append(foundation)
 				.append(" ")
@@ -239,6 +246,6 @@ public class Candidate {
 		}
 
 		sb.append(" generation ").append(generation);
-		return sb.toString();
+		return sb;
 	}
 }
@@ -46,78 +46,64 @@ public class Content {
 	}
 
 	public static Content from(String sdp, String[] sessionLines, Function<String,Content.Creator> creatorProvider, Content.Creator localRole) {
-		String[] lines = sdp.split("\r\n");
-		String[] line = lines[0].split(" ");
-		String mediaName = line[0].substring(2);
-		String name = Arrays.stream(lines)
-				.filter(it -> it.startsWith("a=mid:"))
-				.findFirst()
-				.map(it -> it.substring(6))
-				.orElse(mediaName);
-
-		Optional<String> pwd = Arrays.stream(lines)
-				.filter(it -> it.startsWith("a=ice-pwd:"))
-				.findFirst()
-				.map(it -> it.substring("a=ice-pwd:".length()));
-		Optional<String> ufrag = Arrays.stream(lines)
-				.filter(it -> it.startsWith("a=ice-ufrag:"))
-				.findFirst()
-				.map(it -> it.substring("a=ice-ufrag:".length()));
+		return from(SDPLines.of(sdp.split("\r\n")), SDPLines.of(sessionLines), creatorProvider, localRole, DescriptorPool.NONE);
+	}
+
+	static Content from(SDPLines lines, SDPLines sessionLines, Function<String,Content.Creator> creatorProvider, Content.Creator localRole, DescriptorPool descriptorPool) {
+		String[] line = lines.field('m').orElse("").split(" ");
+		String mediaName = line[0];
+		String name = lines.first("mid").orElse(mediaName);
+
+		Optional<String> pwd = lines.first("ice-pwd");
+		Optional<String> ufrag = lines.first("ice-ufrag");
 
 		Content.Creator creator = creatorProvider.apply(name);
 
-		Optional<Senders> senders = StreamType.fromLines(lines).map(it -> it.toSenders(localRole));
-
-		List<String> payloadIds = Arrays.stream(line).limit(lines.length-1).skip(3).collect(Collectors.toList());
-		List<Payload> payloads = payloadIds.stream().map(id -> {
-			String prefix = "a=rtpmap:" + id;
-			Optional<String[]> l = Arrays.stream(lines)
-					.filter(it -> it.startsWith(prefix))
-					.map(it -> it.substring(prefix.length()))
-					.findFirst()
-					.map(it -> it.split("/"));
-			String prefix2 = "a=fmtp:" + id;
-			List<Payload.Parameter> parameters = Arrays.stream(lines)
-					.filter(it -> it.startsWith(prefix2))
-					.map(it -> it.substring(prefix2.length()))
+		Optional<Senders> senders = lines.getStreamType().map(it -> it.toSenders(localRole));
+
+		List<Payload> payloads = new ArrayList<>();
+		for (int i = 3; i < line.length; i++) {
+			String id = line[i];
+			Optional<String[]> l = lines.keyed("rtpmap", id).stream().findFirst().map(it -> it.split("/"));
+			List<Payload.Parameter> parameters = lines.keyed("fmtp", id)
+					.stream()
 					.map(it -> it.split(";"))
 					.flatMap(Arrays::stream)
 					.map(Payload.Parameter::from)
 					.filter(Objects::nonNull)
+					.map(descriptorPool::intern)
 					.collect(Collectors.toList());
-			String prefix3 = "a=rtcp-fb:" + id + " ";
-			List<Payload.RtcpFeedback> rtcpFeedbacks = Arrays.stream(lines)
-					.filter(it -> it.startsWith(prefix3))
-					.map(it -> it.substring(prefix3.length()))
+			List<Payload.RtcpFeedback> rtcpFeedbacks = lines.keyed("rtcp-fb", id)
+					.stream()
+					.filter(it -> !it.isEmpty())
 					.map(Payload.RtcpFeedback::from)
 					.filter(Objects::nonNull)
+					.map(descriptorPool::intern)
 					.collect(Collectors.toList());
 			Optional<Integer> clockrate = l.map(x -> x[1]).map(Integer::parseInt);
 			int channels = l.filter(x -> x.length > 2).map(x -> x[2]).map(Integer::parseInt).orElse(1);
-			return new Payload(Integer.parseInt(id), channels, clockrate, Optional.empty(), l.map(x -> x[0].trim()), Optional.empty(), parameters, rtcpFeedbacks);
-		}).collect(Collectors.toList());
+			payloads.add(descriptorPool.intern(new Payload(Integer.parseInt(id), channels, clockrate, Optional.empty(), l.map(x -> x[0].trim()), Optional.empty(), parameters, rtcpFeedbacks)));
+		}
 
-		List<Encryption> encryptions = Arrays.stream(lines)
-				.filter(it -> it.startsWith("a=crypto:"))
+		List<Encryption> encryptions = lines.all("crypto")
+				.stream()
 				.map(it -> it.split(" "))
-				.filter(it -> it.length > 3)
-				.map(it -> {
-					return new Encryption(it[0], it[1], Optional.ofNullable(it.length > 3 ? it[3] : null), it[2]);
-				})
-				.filter(Objects::nonNull)
+				.filter(it -> it.length > 2)
+				.map(it -> new Encryption(it[1], it[2], Optional.ofNullable(it.length > 3 ? it[3] : null), it[0]))
 				.collect(Collectors.toList());
 
 		List<HdrExt> hdrExts = HdrExt.from(lines);
+		hdrExts.replaceAll(descriptorPool::intern);
 		List<SSRC> ssrcs = SSRC.from(lines);
 		List<SSRCGroup> ssrcGroups = SSRCGroup.from(lines);
-		boolean rtcpMux = Arrays.stream(lines).anyMatch(it -> it.equals("a=rtcp-mux"));
+		boolean rtcpMux = lines.has("rtcp-mux");
 
 		Description description = new Description(mediaName, Optional.empty(), payloads, null, encryptions, rtcpMux, ssrcs,
 												  ssrcGroups, hdrExts);
 
-		List<Candidate> candidates = Arrays.stream(lines)
-				.filter(it -> it.startsWith("a=candidate:"))
-				.map(Candidate::from)
+		List<Candidate> candidates = lines.all("candidate")
+				.stream()
+				.map(Candidate::fromAttribute)
 				.filter(Objects::nonNull)
 				.collect(Collectors.toList());
 
@@ -223,6 +209,21 @@ public class Content {
 		return new Content(creator, name, Optional.ofNullable(senders), description, transports);
 	}
 
+	/**
+	 * Returns content with candidates added to its first transport.
+	 */
+	public Content withCandidates(List<Candidate> candidates) {
+		if (transports.isEmpty() || candidates.isEmpty()) {
+			return this;
+		}
+		Transport transport = transports.get(0);
+		List<Candidate> list = new ArrayList<>(transport.getCandidates());
+		list.addAll(candidates);
+		List<Transport> transports = new ArrayList<>(this.transports);
+		transports.set(0, new Transport(transport.getUfrag(), transport.getPwd(), list, transport.getFingerprint()));
+		return new Content(creator, name, senders, description, transports);
+	}
+
 	public Content withSSRCs(List<SSRC> ssrcs, List<SSRCGroup> ssrcGroups) {
 		return new Content(creator, name, senders, description.map(desc -> desc.withSSRCs(ssrcs, ssrcGroups)), transports);
 	}
@@ -237,7 +238,7 @@ public class Content {
 				.collect(Collectors.toMap(it -> "a=" + it.name(), Function.identity()));
 
 		public static Optional<StreamType> fromLines(String[] lines) {
-			return Arrays.stream(lines).map(SDP_LINE::get).filter(Objects::nonNull).findFirst();
+			return SDPLines.of(lines).getStreamType();
 		}
 
 		public Senders toSenders(Creator creator) {
@@ -256,61 +257,122 @@ public class Content {
 	}
 
 	public String toSDP(Content.Creator localRole, SDP.Direction direction) {
-		List<String> lines = new ArrayList<>();
-
-		description.ifPresent(description -> {
-			String proto = (description.getEncryptions().isEmpty() &&
-					!transports.stream().filter(it -> it.getFingerprint().isEmpty()).findAny().isEmpty())
-						   ? "RTP/AVPF"
-						   : "RTP/SAVPF";
-			lines.add("m=" + description.getMedia() + " 1 " + proto + " " + description.getPayloads()
-					.stream()
-					.map(it -> it.getId())
-					.map(String::valueOf)
-					.collect(Collectors.joining(" ")));
-		});
+		StringBuilder sb = new StringBuilder(estimateSDPLength());
+		appendSDP(sb, localRole, direction);
+		// lines of a single content are not terminated with CRLF
+		sb.setLength(sb.length() - 2);
+		return sb.toString();
+	}
+
+	int estimateSDPLength() {
+		int length = 256;
+		if (description.isPresent()) {
+			Description desc = description.get();
+			length += desc.getPayloads().size() * 96 + desc.getHdrExts().size() * 64 + desc.getSsrcs().size() * 128;
+		}
+		for (Transport transport : transports) {
+			length += transport.getCandidates().size() * 96;
+		}
+		return length;
+	}
+
+	/**
+	 * Appends SDP lines of this content, each terminated with CRLF.
+	 */
+	void appendSDP(StringBuilder sb, Content.Creator localRole, SDP.Direction direction) {
+		Transport transport = transports.isEmpty() ? null : transports.get(0);
+		Description description = this.description.orElse(null);
+		boolean rtp = description != null && isRtp(description.getMedia());
+
+		if (description != null) {
+			boolean anyWithoutFingerprint = false;
+			for (Transport it : transports) {
+				if (it.getFingerprint().isEmpty()) {
+					anyWithoutFingerprint = true;
+					break;
+				}
+			}
+			String proto = (description.getEncryptions().isEmpty() && anyWithoutFingerprint) ? "RTP/AVPF" : "RTP/SAVPF";
+			sb.append("m=").append(description.getMedia()).append(" 1 ").append(proto).append(' ');
+			List<Payload> payloads = description.getPayloads();
+			for (int i = 0; i < payloads.size(); i++) {
+				if (i > 0) {
+					sb.append(' ');
+				}
+				sb.append(payloads.get(i).getId());
+			}
+			sb.append("\r\n");
+		}
 
-		lines.add("c=IN IP4 0.0.0.0");
+		sb.append("c=IN IP4 0.0.0.0\r\n");
 
-		if (description.filter(it -> Set.of("audio", "video").contains(it.getMedia())).isPresent()) {
-			lines.add("a=rtcp:1 IN IP4 0.0.0.0");
+		if (rtp) {
+			sb.append("a=rtcp:1 IN IP4 0.0.0.0\r\n");
 		}
 
-		transports.stream().findFirst().ifPresent(transport -> {
-			transport.getUfrag().map(it -> "a=ice-ufrag:" + it).ifPresent(lines::add);
-			transport.getPwd().map(it -> "a=ice-pwd:" + it).ifPresent(lines::add);
-			transport.getFingerprint().ifPresent(fingerprint -> {
-				lines.add("a=fingerprint:" + fingerprint.getHash() + " " + fingerprint.getValue());
-				lines.add("a=setup:" + fingerprint.getSetup().name());
-			});
-		});
-
-		lines.add("a=" + getSenders().toStreamType(localRole, direction).name());
-//		lines.add("a=sendrecv");
-		lines.add("a=mid:" + name);
-		lines.add("a=ice-options:trickle");
-
-		description.ifPresent(description -> {
-			if (Set.of("audio", "video").contains(description.getMedia())) {
+		if (transport != null) {
+			if (transport.getUfrag().isPresent()) {
+				sb.append("a=ice-ufrag:").append(transport.getUfrag().get()).append("\r\n");
+			}
+			if (transport.getPwd().isPresent()) {
+				sb.append("a=ice-pwd:").append(transport.getPwd().get()).append("\r\n");
+			}
+			if (transport.getFingerprint().isPresent()) {
+				Fingerprint fingerprint = transport.getFingerprint().get();
+				sb.append("a=fingerprint:").append(fingerprint.getHash()).append(' ').append(fingerprint.getValue()).append("\r\n");
+				sb.append("a=setup:").append(fingerprint.getSetup().name()).append("\r\n");
+			}
+		}
+
+		sb.append("a=").append(getSenders().toStreamType(localRole, direction).name()).append("\r\n");
+		sb.append("a=mid:").append(name).append("\r\n");
+		sb.append("a=ice-options:trickle\r\n");
+
+		if (description != null) {
+			if (rtp) {
 				if (description.isRtcpMux()) {
-					lines.add("a=rtcp-mux");
+					sb.append("a=rtcp-mux\r\n");
+				}
+				for (Encryption encryption : description.getEncryptions()) {
+					encryption.appendSDP(sb).append("\r\n");
 				}
-				description.getEncryptions().stream().map(Encryption::toSDP).forEach(lines::add);
 			}
-			description.getPayloads().stream().map(Payload::toSDP).flatMap(Collection::stream).forEach(lines::add);
-
-			description.getHdrExts().stream().map(HdrExt::toSDP).forEach(lines::add);
-			description.getSsrcGroups().stream().map(SSRCGroup::toSDP).forEach(lines::add);
-			description.getSsrcs().stream().map(SSRC::toSDP).flatMap(Collection::stream).forEach(lines::add);
+			for (Payload payload : description.getPayloads()) {
+				payload.appendSDP(sb);
+			}
+			for (HdrExt hdrExt : description.getHdrExts()) {
+				hdrExt.appendSDP(sb).append("\r\n");
+			}
+			for (SSRCGroup group : description.getSsrcGroups()) {
+				group.appendSDP(sb).append("\r\n");
+			}
+			for (SSRC ssrc : description.getSsrcs()) {
+				ssrc.appendSDP(sb);
+			}
 
-			description.getSsrcs().stream().map(SSRC::getParameters).flatMap(it -> it.stream()).filter(it -> "msid".equals(it.getName()) && it.getValue().isPresent()).map(
-					SSRC.Parameter::getValue).map(Optional::get).distinct().map(it -> "a=msid:" + it).forEach(lines::add);
-		});
+			Set<String> msids = null;
+			for (SSRC ssrc : description.getSsrcs()) {
+				for (SSRC.Parameter parameter : ssrc.getParameters()) {
+					if ("msid".equals(parameter.getName()) && parameter.getValue().isPresent()) {
+						if (msids == null) {
+							msids = new HashSet<>();
+						}
+						if (msids.add(parameter.getValue().get())) {
+							sb.append("a=msid:").append(parameter.getValue().get()).append("\r\n");
+						}
+					}
+				}
+			}
+		}
 
-		transports.stream().findFirst().ifPresent(transport -> {
-			transport.getCandidates().stream().map(Candidate::toSDP).map(it -> "a=" + it).forEach(lines::add);
-		});
+		if (transport != null) {
+			for (Candidate candidate : transport.getCandidates()) {
+				candidate.appendSDP(sb.append("a=")).append("\r\n");
+			}
+		}
+	}
 
-		return lines.stream().collect(Collectors.joining("\r\n"));
+	private static boolean isRtp(String media) {
+		return "audio".equals(media) || "video".equals(media);
 	}
 }
@@ -0,0 +1,53 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet.jingle;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pool of immutable descriptors (payload types with their parameters and feedbacks, header extensions) used to share
+ * instances between SDPs parsed within a single meet, as all of its participants use the same codecs.
+ */
+public class DescriptorPool {
+
+	/**
+	 * Pool which does not share any descriptors.
+	 */
+	public static final DescriptorPool NONE = new DescriptorPool() {
+		@Override
+		public <T> T intern(T descriptor) {
+			return descriptor;
+		}
+	};
+
+	private final ConcurrentHashMap<Object, Object> descriptors = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns instance equal to passed descriptor, which is already in the pool, or adds passed descriptor to the pool.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T intern(T descriptor) {
+		Object existing = descriptors.putIfAbsent(descriptor, descriptor);
+		return existing == null ? descriptor : (T) existing;
+	}
+
+	public int size() {
+		return descriptors.size();
+	}
+
+}
@@ -75,8 +75,14 @@ public class Encryption {
 	}
 
 	public String toSDP() {
-		StringBuilder sb = new StringBuilder("a=crypto:").append(tag).append(" ").append(cryptoSuite).append(" ").append(keyParams);
-		sessionParams.ifPresent(it -> sb.append(" ").append(it));
-		return sb.toString();
+		return appendSDP(new StringBuilder()).toString();
+	}
+
+	StringBuilder appendSDP(StringBuilder sb) {
+		sb.append("a=crypto:").append(tag).append(' ').append(cryptoSuite).append(' ').append(keyParams);
+		if (sessionParams.isPresent()) {
+			sb.append(' ').append(sessionParams.get());
+		}
+		return sb;
 	}
 }
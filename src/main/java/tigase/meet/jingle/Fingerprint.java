@@ -19,16 +19,19 @@ package tigase.meet.jingle;
 
 import tigase.xml.Element;
 
-import java.util.Arrays;
 import java.util.Optional;
 
 public class Fingerprint {
 
 	public static class FingerprintData {
 		public static Optional<FingerprintData> from(String[] lines) {
-			return Arrays.stream(lines)
-					.filter(it -> it.startsWith("a=fingerprint:"))
-					.map(it -> it.substring("a=fingerprint:".length()).split(" "))
+			return from(SDPLines.of(lines));
+		}
+
+		static Optional<FingerprintData> from(SDPLines lines) {
+			return lines.all("fingerprint")
+					.stream()
+					.map(it -> it.split(" "))
 					.filter(it -> it.length >= 2)
 					.findFirst().map(it -> new FingerprintData(it[0], it[1]));
 		}
@@ -67,11 +70,11 @@ public class Fingerprint {
 		actpass, active, passive;
 
 		public static Optional<Setup> from(String[] lines) {
-			return Arrays.stream(lines)
-					.filter(it -> it.startsWith("a=setup:"))
-					.findFirst()
-					.map(it -> it.substring("a=setup:".length()))
-					.map(Fingerprint.Setup::valueOf);
+			return from(SDPLines.of(lines));
+		}
+
+		static Optional<Setup> from(SDPLines lines) {
+			return lines.first("setup").map(Fingerprint.Setup::valueOf);
 		}
 	}
 
@@ -19,8 +19,8 @@ package tigase.meet.jingle;
 
 import tigase.xml.Element;
 
-import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 public class HdrExt {
@@ -40,9 +40,12 @@ public class HdrExt {
 	}
 
 	public static List<HdrExt> from(String[] lines) {
-		return Arrays.stream(lines)
-				.filter(it -> it.startsWith("a=extmap:"))
-				.map(it -> it.substring("a=extmap:".length()))
+		return from(SDPLines.of(lines));
+	}
+
+	static List<HdrExt> from(SDPLines lines) {
+		return lines.all("extmap")
+				.stream()
 				.map(it -> it.split(" "))
 				.filter(it -> it.length > 1 && !it[0].contains("/"))
 				.map(it -> new HdrExt(it[0], it[1], Description.Senders.both))
@@ -84,8 +87,28 @@ public class HdrExt {
 		return el;
 	}
 
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof HdrExt hdrExt)) {
+			return false;
+		}
+		return Objects.equals(id, hdrExt.id) && Objects.equals(uri, hdrExt.uri) && senders == hdrExt.senders;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(id, uri, senders);
+	}
+
 	public String toSDP() {
-		return "a=extmap:" + id + " " + uri;
+		return appendSDP(new StringBuilder()).toString();
+	}
+
+	StringBuilder appendSDP(StringBuilder sb) {
+		return sb.append("a=extmap:").append(id).append(' ').append(uri);
 	}
 
 }
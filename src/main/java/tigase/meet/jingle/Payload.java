@@ -146,6 +146,59 @@ public class Payload {
 		return lines;
 	}
 
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof Payload payload)) {
+			return false;
+		}
+		return id == payload.id && channels == payload.channels && clockrate.equals(payload.clockrate) &&
+				maxptime.equals(payload.maxptime) && name.equals(payload.name) && ptime.equals(payload.ptime) &&
+				parameters.equals(payload.parameters) && rtcpFeedback.equals(payload.rtcpFeedback);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(id, channels, clockrate, maxptime, name, ptime, parameters, rtcpFeedback);
+	}
+
+	/**
+	 * Appends SDP lines of this payload type, each terminated with CRLF.
+	 */
+	void appendSDP(StringBuilder sb) {
+		sb.append("a=rtpmap:").append(id);
+		if (name.isPresent()) {
+			sb.append(' ').append(name.get());
+			if (clockrate.isPresent()) {
+				sb.append('/').append(clockrate.get().intValue());
+			}
+			if (channels > 1) {
+				sb.append('/').append(channels);
+			}
+		}
+		sb.append("\r\n");
+		if (!parameters.isEmpty()) {
+			sb.append("a=fmtp:").append(id).append(' ');
+			for (int i = 0; i < parameters.size(); i++) {
+				if (i > 0) {
+					sb.append(';');
+				}
+				Parameter parameter = parameters.get(i);
+				sb.append(parameter.name).append('=').append(parameter.value);
+			}
+			sb.append("\r\n");
+		}
+		for (RtcpFeedback feedback : rtcpFeedback) {
+			sb.append("a=rtcp-fb:").append(id).append(' ').append(feedback.type);
+			if (feedback.subtype.isPresent()) {
+				sb.append(' ').append(feedback.subtype.get());
+			}
+			sb.append("\r\n");
+		}
+	}
+
 	public static class Parameter {
 
 		public static Parameter from(String sdp) {
@@ -189,6 +242,22 @@ public class Payload {
 		public String toSDP() {
 			return name + "="+value;
 		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Parameter parameter)) {
+				return false;
+			}
+			return Objects.equals(name, parameter.name) && Objects.equals(value, parameter.value);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(name, value);
+		}
 	}
 
 	public static class RtcpFeedback {
@@ -231,5 +300,21 @@ public class Payload {
 			subtype.ifPresent(subtype -> el.setAttribute("subtype", subtype));
 			return el;
 		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof RtcpFeedback feedback)) {
+				return false;
+			}
+			return Objects.equals(type, feedback.type) && subtype.equals(feedback.subtype);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(type, subtype);
+		}
 	}
 }
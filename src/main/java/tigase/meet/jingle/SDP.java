@@ -23,7 +23,6 @@ import tigase.xmpp.jid.JID;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public class SDP {
 
@@ -56,44 +55,89 @@ public class SDP {
 	}
 
 	public static SDP from(String sdp, Function<String,Content.Creator> creatorProvider, Content.Creator localRole) {
-		String[] parts = sdp.substring(0, sdp.length() - 2).split("\r\nm=");
-		List<String> media = Arrays.stream(parts).skip(1).map(it -> "m=" + it).collect(Collectors.toList());
-		String[] sessionLines = parts[0].split("\r\n");
-		Optional<String[]> sessionLine = Arrays.stream(sessionLines)
-				.filter(it -> it.startsWith("o="))
-				.findFirst()
-				.map(it -> it.split(" "));
-		if (sessionLine.isEmpty() || sessionLine.get().length <= 3) {
+		return from(sdp, creatorProvider, localRole, null);
+	}
+
+	/**
+	 * Parses SDP reusing contents of the previous SDP (parsed from a string) which media sections were not changed, so
+	 * only changed sections are parsed and {@link #diffFrom(SDP)} may skip them by checking identity.
+	 */
+	public static SDP from(String sdp, Function<String,Content.Creator> creatorProvider, Content.Creator localRole, SDP previous) {
+		return from(sdp, creatorProvider, localRole, previous, DescriptorPool.NONE);
+	}
+
+	/**
+	 * Parses SDP as {@link #from(String, Function, Content.Creator, SDP)} with descriptors of parsed contents shared
+	 * using passed pool.
+	 */
+	public static SDP from(String sdp, Function<String,Content.Creator> creatorProvider, Content.Creator localRole, SDP previous, DescriptorPool descriptorPool) {
+		List<String> sections = SDPLines.split(sdp);
+		String session = sections.get(0);
+		SDPLines sessionLines = SDPLines.parse(session);
+		String[] sessionLine = sessionLines.field('o').map(it -> it.split(" ")).orElse(null);
+		if (sessionLine == null || sessionLine.length <= 3) {
 			return null;
 		}
 
-		String sid = sessionLine.get()[1];
-		String id = sessionLine.get()[2];
+		String sid = sessionLine[1];
+		String id = sessionLine[2];
 
-		Optional<String[]> groupParts = Arrays.stream(sessionLines)
-				.filter(it -> it.startsWith("a=group:BUNDLE "))
+		List<String> bundle = sessionLines.all("group")
+				.stream()
+				.filter(it -> it.startsWith("BUNDLE "))
 				.findFirst()
-				.map(it -> it.split(" "));
-
-		List<String> bundle = groupParts.filter(it -> "a=group:BUNDLE".equals(it[0]))
-				.map(it -> Arrays.stream(it).skip(1).collect(Collectors.toList()))
+				.map(it -> Arrays.stream(it.split(" ")).skip(1).collect(Collectors.toList()))
 				.orElse(Collections.emptyList());
 
-		List<Content> contents = media.stream()
-				.map(m -> Content.from(m, sessionLines, creatorProvider, localRole))
-				.filter(Objects::nonNull)
-				.collect(Collectors.toList());
-		return new SDP(id, contents, bundle);
+		// session attributes (ie. fingerprint) are used by contents, so they can be reused only if these are the same
+		// (other session lines, ie. o= with version incremented on each offer, do not change contents)
+		List<List<String>> contentSessionAttributes = contentSessionAttributes(sessionLines);
+		Map<String,Content> previousContents = previous != null && contentSessionAttributes.equals(previous.contentSessionAttributes)
+											   ? previous.sources
+											   : Collections.emptyMap();
+		Map<String,Content> sources = new HashMap<>();
+		List<Content> contents = new ArrayList<>(sections.size() - 1);
+		for (int i = 1; i < sections.size(); i++) {
+			String section = sections.get(i);
+			Content content = previousContents.get(section);
+			if (content == null || content.getCreator() != creatorProvider.apply(content.getName())) {
+				content = Content.from(SDPLines.parse(section), sessionLines, creatorProvider, localRole, descriptorPool);
+			}
+			if (content != null) {
+				contents.add(content);
+				sources.put(section, content);
+			}
+		}
+		return new SDP(id, contents, bundle, contentSessionAttributes, sources);
+	}
+
+	private static List<List<String>> contentSessionAttributes(SDPLines sessionLines) {
+		return List.of(sessionLines.all("fingerprint"), sessionLines.all("setup"), sessionLines.all("ice-ufrag"),
+					   sessionLines.all("ice-pwd"));
 	}
 
 	private final String id;
 	private final List<Content> contents;
 	private final List<String> bundle;
+	private final Map<String,Integer> contentIndexes;
+	// session attributes used by contents and contents by text of their media sections if parsed from a string
+	private final List<List<String>> contentSessionAttributes;
+	private final Map<String,Content> sources;
 
 	public SDP(String id, List<Content> contents, List<String> bundle) {
+		this(id, contents, bundle, null, Collections.emptyMap());
+	}
+
+	private SDP(String id, List<Content> contents, List<String> bundle, List<List<String>> contentSessionAttributes, Map<String,Content> sources) {
 		this.id = id;
 		this.contents = contents;
 		this.bundle = bundle;
+		this.contentSessionAttributes = contentSessionAttributes;
+		this.sources = sources;
+		this.contentIndexes = new HashMap<>(contents.size() * 2);
+		for (int i = 0; i < contents.size(); i++) {
+			contentIndexes.putIfAbsent(contents.get(i).getName(), i);
+		}
 	}
 
 	public String getId() {
@@ -136,84 +180,120 @@ public class SDP {
 	}
 
 	public String toString(String sid, Content.Creator localRole, Direction direction) {
-		List<String> lines = new ArrayList<>();
-		lines.add("v=0");
-		lines.add("o=- " + sid + " " + id + " IN IP4 0.0.0.0");
-		lines.add("s=-");
-		lines.add("t=0 0");
+		int length = 128;
+		for (Content content : contents) {
+			length += content.estimateSDPLength();
+		}
+		StringBuilder sb = new StringBuilder(length);
+		sb.append("v=0\r\n");
+		sb.append("o=- ").append(sid).append(' ').append(id).append(" IN IP4 0.0.0.0\r\n");
+		sb.append("s=-\r\n");
+		sb.append("t=0 0\r\n");
 
 		if (!bundle.isEmpty()) {
-			lines.add("a=group:BUNDLE " + bundle.stream().collect(Collectors.joining(" ")));
+			sb.append("a=group:BUNDLE");
+			for (String name : bundle) {
+				sb.append(' ').append(name);
+			}
+			sb.append("\r\n");
 		}
 
-		contents.stream().map(c -> c.toSDP(localRole, direction)).forEach(lines::add);
+		for (Content content : contents) {
+			content.appendSDP(sb, localRole, direction);
+		}
 
-		return lines.stream().collect(Collectors.joining("\r\n")) + "\r\n";
+		return sb.toString();
+	}
+
+	public Optional<Content> getContent(String name) {
+		Integer idx = contentIndexes.get(name);
+		return idx == null ? Optional.empty() : Optional.of(contents.get(idx));
+	}
+
+	/**
+	 * Returns SDP with candidates added to transports of contents with matching names.
+	 */
+	public SDP withCandidates(Map<String,List<Candidate>> candidates) {
+		if (candidates.isEmpty()) {
+			return this;
+		}
+		List<Content> contents = new ArrayList<>(this.contents.size());
+		for (Content content : this.contents) {
+			contents.add(content.withCandidates(candidates.getOrDefault(content.getName(), Collections.emptyList())));
+		}
+		return new SDP(id, contents, bundle);
 	}
 
 	public SDP applyDiff(ContentAction action, SDP diff) {
 		switch (action) {
 			case accept:
-			case add:
-				return new SDP(this.id, Stream.concat(getContents().stream(), diff.getContents().stream())
-						.collect(Collectors.toList()), diff.getBundle());
+			case add: {
+				List<Content> contents = new ArrayList<>(this.contents.size() + diff.contents.size());
+				contents.addAll(this.contents);
+				contents.addAll(diff.contents);
+				return new SDP(this.id, contents, diff.getBundle());
+			}
 			case init:
 				return diff;
-			case modify:
-				Content[] contents = this.getContents().toArray(new Content[this.getContents().size()]);
+			case modify: {
+				List<Content> contents = new ArrayList<>(this.contents);
 				for (Content diffed : diff.getContents()) {
-					for (int i=0; i<contents.length; i++) {
-						if (contents[i].getName().equals(diffed.getName())) {
-							contents[i] = contents[i].withSenders(diffed.getSenders())
-									.withSSRCs(diffed.getDescription()
-													   .map(Description::getSsrcs)
-													   .orElse(Collections.emptyList()), diffed.getDescription()
-													   .map(Description::getSsrcGroups)
-													   .orElse(Collections.emptyList()));
-						}
+					Integer idx = contentIndexes.get(diffed.getName());
+					if (idx != null) {
+						contents.set(idx, contents.get(idx)
+								.withSenders(diffed.getSenders())
+								.withSSRCs(diffed.getDescription()
+												   .map(Description::getSsrcs)
+												   .orElse(Collections.emptyList()), diffed.getDescription()
+												   .map(Description::getSsrcGroups)
+												   .orElse(Collections.emptyList())));
+					}
+				}
+				return new SDP(id, contents, getBundle());
+			}
+			case remove: {
+				List<Content> contents = new ArrayList<>(this.contents.size());
+				for (Content content : this.contents) {
+					if (!diff.contentIndexes.containsKey(content.getName())) {
+						contents.add(content);
 					}
 				}
-				return new SDP(id, new ArrayList<>(Arrays.asList(contents)), getBundle());
-			case remove:
-				Set<String> toRemove = diff.getContents().stream().map(Content::getName).collect(Collectors.toSet());
-				return new SDP(id, getContents().stream().filter(it -> !toRemove.contains(it.getName())).collect(
-						Collectors.toList()), diff.getBundle());
+				return new SDP(id, contents, diff.getBundle());
+			}
 		}
 		throw new UnsupportedOperationException("Unsupported content action: " + action.name());
 	}
 
 	public Map<ContentAction,SDP> diffFrom(SDP oldSdp) {
 		Map<ContentAction,SDP> results = new HashMap<>();
-		
-		List<String> oldContentNames = oldSdp.getContents().stream().map(Content::getName).collect(Collectors.toList());
-		List<String> newContentNames = getContents().stream().map(Content::getName).collect(Collectors.toList());
 
-		List<Content> contentsToRemove = oldSdp.getContents()
-				.stream()
-				.filter(it -> !newContentNames.contains(it.getName()))
-				.collect(Collectors.toList());
+		List<Content> contentsToRemove = new ArrayList<>();
+		for (Content oldContent : oldSdp.getContents()) {
+			if (!contentIndexes.containsKey(oldContent.getName())) {
+				contentsToRemove.add(oldContent.cloneHeaderOnly());
+			}
+		}
 		if (!contentsToRemove.isEmpty()) {
-			SDP sdp = new SDP(id, contentsToRemove.stream().map(Content::cloneHeaderOnly).collect(Collectors.toList()), this.getBundle());
-			results.put(ContentAction.remove, sdp);
+			results.put(ContentAction.remove, new SDP(id, contentsToRemove, this.getBundle()));
 		}
 
-		List<Content> contentsToAdd = getContents().stream()
-				.filter(it -> !oldContentNames.contains(it.getName()))
-				.collect(Collectors.toList());
+		List<Content> contentsToAdd = new ArrayList<>();
+		List<Content> contentsToModify = new ArrayList<>();
+		for (Content content : getContents()) {
+			Integer idx = oldSdp.contentIndexes.get(content.getName());
+			if (idx == null) {
+				contentsToAdd.add(content);
+				continue;
+			}
+			Content oldContent = oldSdp.contents.get(idx);
+			// contents reused from previous SDP are not changed
+			if (oldContent != content && oldContent.getSenders() != content.getSenders()) {
+				contentsToModify.add(content.cloneForModify());
+			}
+		}
 		if (!contentsToAdd.isEmpty()) {
 			results.put(ContentAction.add, new SDP(id, contentsToAdd, this.getBundle()));
 		}
-
-		List<Content> contentsToModify = this.getContents()
-				.stream()
-				.filter(it -> oldSdp.getContents()
-						.stream()
-						.filter(oldContent -> it.getName().equals(oldContent.getName()))
-						.filter(oldContent -> it.getSenders() != oldContent.getSenders())
-						.findFirst()
-						.isPresent())
-				.map(Content::cloneForModify)
-				.collect(Collectors.toList());
 		if (!contentsToModify.isEmpty()) {
 			results.put(ContentAction.modify, new SDP(id, contentsToModify, Collections.emptyList()));
 		}
@@ -0,0 +1,146 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet.jingle;
+
+import java.util.*;
+
+/**
+ * Lines of a single section of SDP (session or media), indexed by attribute name while they are read.
+ *
+ * Model classes are built from this index, so parsing of SDP requires a single pass over its lines instead of a scan
+ * of all lines for each attribute and for each payload.
+ */
+final class SDPLines {
+
+	// attributes which values start with a payload type or SSRC, indexed additionally by it
+	private static final Set<String> KEYED_ATTRIBUTES = Set.of("rtpmap", "fmtp", "rtcp-fb", "ssrc");
+
+	/**
+	 * Splits SDP into sections, each with its terminating CRLF. First section is a session section, following ones
+	 * are media sections.
+	 */
+	static List<String> split(String sdp) {
+		List<String> sections = new ArrayList<>();
+		int start = 0;
+		int idx;
+		while ((idx = sdp.indexOf("\r\nm=", start)) >= 0) {
+			sections.add(sdp.substring(start, idx + 2));
+			start = idx + 2;
+		}
+		sections.add(sdp.substring(start));
+		return sections;
+	}
+
+	static SDPLines parse(String section) {
+		SDPLines lines = new SDPLines();
+		int start = 0;
+		int length = section.length();
+		while (start < length) {
+			int end = section.indexOf("\r\n", start);
+			if (end < 0) {
+				end = length;
+			}
+			if (end > start) {
+				lines.add(section.substring(start, end));
+			}
+			start = end + 2;
+		}
+		return lines;
+	}
+
+	static SDPLines of(String[] lines) {
+		SDPLines section = new SDPLines();
+		for (String line : lines) {
+			section.add(line);
+		}
+		return section;
+	}
+
+	private final Map<Character, String> fields = new HashMap<>();
+	private final Map<String, List<String>> attributes = new HashMap<>();
+	private final Map<String, Map<String, List<String>>> keyedAttributes = new HashMap<>();
+	private Content.StreamType streamType;
+
+	private SDPLines() {
+	}
+
+
+	/**
+	 * Returns value of the first line of the type (ie. <code>m</code> or <code>o</code>).
+	 */
+	Optional<String> field(char type) {
+		return Optional.ofNullable(fields.get(type));
+	}
+
+	Optional<String> first(String attribute) {
+		List<String> values = attributes.get(attribute);
+		return values == null ? Optional.empty() : Optional.of(values.get(0));
+	}
+
+	List<String> all(String attribute) {
+		return attributes.getOrDefault(attribute, Collections.emptyList());
+	}
+
+	boolean has(String attribute) {
+		return attributes.containsKey(attribute);
+	}
+
+	/**
+	 * Returns values of attribute (without the key) for the key (payload type or SSRC).
+	 */
+	List<String> keyed(String attribute, String key) {
+		return keyedAttributes.getOrDefault(attribute, Collections.emptyMap()).getOrDefault(key, Collections.emptyList());
+	}
+
+	/**
+	 * Returns keys (payload types or SSRCs) of attribute in order of their first appearance.
+	 */
+	Set<String> keys(String attribute) {
+		return keyedAttributes.getOrDefault(attribute, Collections.emptyMap()).keySet();
+	}
+
+	Optional<Content.StreamType> getStreamType() {
+		return Optional.ofNullable(streamType);
+	}
+
+	private void add(String line) {
+		if (line.length() < 2 || line.charAt(1) != '=') {
+			return;
+		}
+		char type = line.charAt(0);
+		if (type != 'a') {
+			fields.putIfAbsent(type, line.substring(2));
+			return;
+		}
+
+		int idx = line.indexOf(':');
+		String name = idx < 0 ? line.substring(2) : line.substring(2, idx);
+		String value = idx < 0 ? "" : line.substring(idx + 1);
+		attributes.computeIfAbsent(name, key -> new ArrayList<>(1)).add(value);
+
+		if (KEYED_ATTRIBUTES.contains(name)) {
+			int sep = value.indexOf(' ');
+			String key = sep < 0 ? value : value.substring(0, sep);
+			keyedAttributes.computeIfAbsent(name, x -> new LinkedHashMap<>())
+					.computeIfAbsent(key, x -> new ArrayList<>(1))
+					.add(sep < 0 ? "" : value.substring(sep + 1));
+		} else if (streamType == null && idx < 0) {
+			streamType = Content.StreamType.SDP_LINE.get(line);
+		}
+	}
+}
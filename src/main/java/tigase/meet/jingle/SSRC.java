@@ -21,7 +21,6 @@ import tigase.xml.Element;
 
 import java.util.*;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public class SSRC {
 	
@@ -48,20 +47,14 @@ public class SSRC {
 	}
 
 	public static List<SSRC> from(String[] lines) {
-		Stream<String> ssrcs = Arrays.stream(lines)
-				.filter(it -> it.startsWith("a=ssrc:"))
-				.map(it -> it.substring("a=ssrc:".length()))
-				.map(it -> it.split(" ")[0])
-				.distinct();
-		Optional<String> msid = Arrays.stream(lines)
-				.filter(it -> it.startsWith("a=msid:"))
-				.map(it -> it.substring("a=msid:".length()))
-				.findFirst();
-		return ssrcs.map(ssrc -> {
-			String prefix = "a=ssrc:" + ssrc;
-			List<SSRC.Parameter> parameters = Arrays.stream(lines)
-					.filter(it -> it.startsWith(prefix))
-					.map(it -> it.substring(prefix.length()))
+		return from(SDPLines.of(lines));
+	}
+
+	static List<SSRC> from(SDPLines lines) {
+		Optional<String> msid = lines.first("msid");
+		return lines.keys("ssrc").stream().map(ssrc -> {
+			List<SSRC.Parameter> parameters = lines.keyed("ssrc", ssrc)
+					.stream()
 					.map(it -> it.split(":"))
 					.filter(it -> !it[0].trim().isEmpty())
 					.map(it -> new SSRC.Parameter(it[0].trim(), Optional.ofNullable(
@@ -107,6 +100,19 @@ public class SSRC {
 		return parameters.stream().map(it -> "a=ssrc:" + ssrc + " " + it.toSDP()).collect(Collectors.toList());
 	}
 
+	/**
+	 * Appends SDP lines of this source, each terminated with CRLF.
+	 */
+	void appendSDP(StringBuilder sb) {
+		for (Parameter parameter : parameters) {
+			sb.append("a=ssrc:").append(ssrc).append(' ').append(parameter.name);
+			if (parameter.value.isPresent()) {
+				sb.append(':').append(parameter.value.get());
+			}
+			sb.append("\r\n");
+		}
+	}
+
 	public static class Parameter {
 
 		public static Parameter from(Element el) {
@@ -24,7 +24,6 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public class SSRCGroup {
 
@@ -44,9 +43,12 @@ public class SSRCGroup {
 	}
 
 	public static List<SSRCGroup> from(String[] lines) {
-		return Arrays.stream(lines)
-				.filter(it -> it.startsWith("a=ssrc-group:"))
-				.map(it -> it.substring("a=ssrc-group:".length()))
+		return from(SDPLines.of(lines));
+	}
+
+	static List<SSRCGroup> from(SDPLines lines) {
+		return lines.all("ssrc-group")
+				.stream()
 				.map(it -> it.split(" "))
 				.filter(it -> it.length >= 2)
 				.map(it -> new SSRCGroup(it[0], Arrays.stream(it).skip(1).collect(Collectors.toList())))
@@ -82,6 +84,14 @@ public class SSRCGroup {
 	}
 
 	public String toSDP() {
-		return Stream.concat(Stream.of("a=ssrc-group:" + semantics), sources.stream()).collect(Collectors.joining(" "));
+		return appendSDP(new StringBuilder()).toString();
+	}
+
+	StringBuilder appendSDP(StringBuilder sb) {
+		sb.append("a=ssrc-group:").append(semantics);
+		for (String source : sources) {
+			sb.append(' ').append(source);
+		}
+		return sb;
 	}
 }
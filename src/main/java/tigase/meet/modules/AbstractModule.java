@@ -18,6 +18,7 @@
 package tigase.meet.modules;
 
 import tigase.component.exceptions.ComponentException;
+import tigase.meet.janus.JanusBackpressureException;
 import tigase.server.Packet;
 import tigase.util.stringprep.TigaseStringprepException;
 import tigase.xmpp.Authorization;
@@ -26,6 +27,7 @@ import tigase.xmpp.StanzaType;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.logging.Level;
 
 public abstract class AbstractModule extends tigase.component.modules.AbstractModule {
@@ -44,6 +46,12 @@ public abstract class AbstractModule extends tigase.component.modules.AbstractMo
 	public abstract CompletableFuture<Packet> processPacket(Packet packet) throws ComponentException, TigaseStringprepException;
 
 	public ComponentException convertThrowable(Throwable ex) {
+		if (ex instanceof CompletionException && ex.getCause() != null) {
+			return convertThrowable(ex.getCause());
+		}
+		if (ex instanceof JanusBackpressureException) {
+			return new ComponentException(Authorization.RESOURCE_CONSTRAINT, ex.getMessage(), ex);
+		}
 		return (ex instanceof ComponentException)
 			   ? ((ComponentException) ex)
 			   : new ComponentException(Authorization.INTERNAL_SERVER_ERROR, ex.getMessage(), ex);
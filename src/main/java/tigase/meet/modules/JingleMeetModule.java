@@ -23,9 +23,12 @@ import tigase.criteria.Criteria;
 import tigase.criteria.ElementCriteria;
 import tigase.kernel.beans.Bean;
 import tigase.kernel.beans.Inject;
+import tigase.kernel.beans.config.ConfigField;
 import tigase.meet.*;
+import tigase.meet.janus.JSEP;
 import tigase.meet.janus.videoroom.Publisher;
 import tigase.meet.jingle.*;
+import tigase.meet.utils.ExpiringBuffer;
 import tigase.server.Iq;
 import tigase.server.Packet;
 import tigase.util.stringprep.TigaseStringprepException;
@@ -35,6 +38,7 @@ import tigase.xmpp.StanzaType;
 import tigase.xmpp.jid.BareJID;
 import tigase.xmpp.jid.JID;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
@@ -62,6 +66,16 @@ public class JingleMeetModule extends AbstractModule {
 	@Inject
 	private IPresenceRepository presenceRepository;
 
+	@ConfigField(desc = "Time for which ICE candidates received while session is being initiated are kept", alias = "pending-candidates-ttl")
+	private Duration pendingCandidatesTtl = Duration.ofSeconds(30);
+	// candidates received before the publisher session is ready to send them to Janus
+	private final ExpiringBuffer<PendingKey, List<Content>> pendingCandidates = new ExpiringBuffer<>(pendingCandidatesTtl);
+
+	public void setPendingCandidatesTtl(Duration pendingCandidatesTtl) {
+		this.pendingCandidatesTtl = pendingCandidatesTtl;
+		this.pendingCandidates.setTtl(pendingCandidatesTtl);
+	}
+
 	@Override
 	public String[] getFeatures() {
 		return FEATURES;
@@ -98,12 +112,16 @@ public class JingleMeetModule extends AbstractModule {
 				switch (action) {
 					case sessionInitiate: {
 						SDP sdp = SDP.from(jingleEl);
-						return withMeet(meetJid).thenCompose(meet -> logic.checkPermissionFuture(meet, from, IMeetLogic.Action.join)).thenCompose(meet -> meet.join(from)).thenCompose(participation -> {
+						// offer is published while joining, so sending it below will not cause another request to Janus
+						JSEP offer = sdp == null ? null : Participation.toPublisherOffer(sdp);
+						PendingKey pendingKey = new PendingKey(meetJid, from, sessionId);
+						pendingCandidates.expect(pendingKey);
+						return withMeet(meetJid).thenCompose(meet -> logic.checkPermissionFuture(meet, from, IMeetLogic.Action.join)).thenCompose(meet -> meet.join(from, offer)).thenCompose(participation -> {
 							participation.setListener(new ParticipationListener(meetJid, participation));
 
 							participation.startPublisherSession(sessionId);
 							log.log(Level.FINEST, () -> "sending SDP to Janus: " + sdp.toString("0", Content.Creator.responder, SDP.Direction.incoming));
-							return participation.sendPublisherSDP(sessionId, ContentAction.init, sdp).thenApply(result -> {
+							CompletableFuture<Packet> result = participation.sendPublisherSDP(sessionId, ContentAction.init, sdp).thenApply(x -> {
 								log.log(Level.FINEST, "received publisher SDP in completion handler");
 								return packet.okResult((String) null, 0);
 							}).whenComplete((response, ex) -> {
@@ -111,6 +129,15 @@ public class JingleMeetModule extends AbstractModule {
 									participation.leave(ex);
 								}
 							});
+							// remote SDP of the publisher session is set, so candidates received so far may be sent
+							for (List<Content> contents : pendingCandidates.remove(pendingKey)) {
+								sendCandidates(participation, sessionId, contents);
+							}
+							return result;
+						}).whenComplete((response, ex) -> {
+							if (ex != null) {
+								pendingCandidates.remove(pendingKey);
+							}
 						});
 						}
 					case sessionAccept: {
@@ -136,23 +163,23 @@ public class JingleMeetModule extends AbstractModule {
 							}
 							return packet.okResult((String) null, 0);
 						});
-					case transportInfo:
-						// we may need to delay processing of those requests until session-initiate is task is finished as in other case "participation" is not ready yet!
+					case transportInfo: {
+						List<Content> contents = Optional.ofNullable(jingleEl.getChildren())
+								.orElse(Collections.emptyList())
+								.stream()
+								.map(Content::from)
+								.filter(Objects::nonNull)
+								.collect(Collectors.toList());
+						// candidates received while session-initiate is processed are sent when the session is ready
+						if (pendingCandidates.offer(new PendingKey(meetJid, from, sessionId), contents)) {
+							log.log(Level.FINEST, () -> "meet " + meetJid + " buffered candidates from " + from + " for session " + sessionId);
+							return CompletableFuture.completedFuture(packet.okResult((String) null, 0));
+						}
 						return withParticipation(meetJid, from).thenApply(participation -> {
-							for (Content content : Optional.ofNullable(jingleEl.getChildren())
-									.orElse(Collections.emptyList())
-									.stream()
-									.map(Content::from)
-									.filter(Objects::nonNull)
-									.collect(Collectors.toList())) {
-								content.getTransports().stream().findFirst().ifPresent(transport -> {
-									for (Candidate candidate : transport.getCandidates()) {
-										participation.sendCandidate(sessionId, content.getName(), candidate);
-									}
-								});
-							}
+							sendCandidates(participation, sessionId, contents);
 							return packet.okResult((String) null, 0);
 						});
+						}
 					case sessionTerminate:
 						return withParticipation(meetJid, from).thenApply(participation -> {
 							// TODO: how to inform session that it was already closed on the remote end? so that it will not send termination request back?
@@ -185,6 +212,16 @@ public class JingleMeetModule extends AbstractModule {
 		});
 	}
 
+	private void sendCandidates(Participation participation, String sessionId, List<Content> contents) {
+		for (Content content : contents) {
+			content.getTransports().stream().findFirst().ifPresent(transport -> {
+				for (Candidate candidate : transport.getCandidates()) {
+					participation.sendCandidate(sessionId, content.getName(), candidate);
+				}
+			});
+		}
+	}
+
 	private CompletableFuture<Void> sendJingle(BareJID from, JID to, Action action, String sessionId, SDP sdp, Participation participation) {
 		return sendJingle(from, to, action,sessionId, sdp).whenComplete((x, ex) -> {
 			if (ex != null) {
@@ -246,6 +283,24 @@ public class JingleMeetModule extends AbstractModule {
 		writer.write(Packet.packetInstance(iqEl, JID.jidInstanceNS(from), to));
 	}
 
+	private void sendSwitched(BareJID from, JID to, Publisher publisher, List<String> mids) {
+		Element iqEl = new Element("iq");
+		iqEl.setAttribute("id", UUID.randomUUID().toString());
+		iqEl.setAttribute("type", StanzaType.set.name());
+
+		Element switchedEl = new Element("switched");
+		switchedEl.setXMLNS("tigase:meet:0");
+
+		Element publisherEl = new Element("publisher");
+		publisherEl.setAttribute("jid", publisher.getDisplay());
+		mids.stream().map(mid -> new Element("stream", new String[]{"mid"}, new String[]{mid})).forEach(publisherEl::addChild);
+		switchedEl.addChild(publisherEl);
+
+		iqEl.addChild(switchedEl);
+
+		writer.write(Packet.packetInstance(iqEl, JID.jidInstanceNS(from), to));
+	}
+
 	private class ParticipationListener implements Participation.Listener {
 
 		private final BareJID meetJid;
@@ -266,6 +321,11 @@ public class JingleMeetModule extends AbstractModule {
 			sendPublishers(meetJid, participation.getJid(), "left", publishers);
 		}
 
+		@Override
+		public void publisherSwitched(Publisher publisher, List<String> mids) {
+			sendSwitched(meetJid, participation.getJid(), publisher, mids);
+		}
+
 		@Override
 		public void receivedPublisherSDP(String sessionId, ContentAction contentAction,
 										 SDP sdp) {
@@ -299,4 +359,8 @@ public class JingleMeetModule extends AbstractModule {
 			sendJingle(meetJid, participation.getJid(), Action.sessionTerminate, sessionId, new SDP("", Collections.emptyList(), Collections.emptyList()));
 		}
 	}
+
+	private record PendingKey(BareJID meetJid, JID jid, String sessionId) {
+
+	}
 }
@@ -0,0 +1,108 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet.modules;
+
+import tigase.component.exceptions.ComponentException;
+import tigase.criteria.Criteria;
+import tigase.criteria.ElementCriteria;
+import tigase.kernel.beans.Bean;
+import tigase.kernel.beans.Inject;
+import tigase.meet.IMeetRepository;
+import tigase.meet.Meet;
+import tigase.meet.MeetComponent;
+import tigase.meet.Participation;
+import tigase.meet.janus.videoroom.LocalSubscriber;
+import tigase.server.Packet;
+import tigase.util.stringprep.TigaseStringprepException;
+import tigase.xml.Element;
+import tigase.xmpp.Authorization;
+import tigase.xmpp.StanzaType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+
+@Bean(name = "layersMeetModule", parent = MeetComponent.class, active = true)
+public class LayersMeetModule extends AbstractModule {
+
+	private static final Criteria CRITERIA = ElementCriteria.name("iq").add(ElementCriteria.name("layers", "tigase:meet:0"));
+
+	private static final String[] FEATURES = new String[] { "tigase:meet:0:layers" };
+
+	@Inject
+	private IMeetRepository meetRepository;
+
+	@Override
+	public String[] getFeatures() {
+		return FEATURES;
+	}
+
+	@Override
+	public Criteria getModuleCriteria() {
+		return CRITERIA;
+	}
+
+	@Override
+	public CompletableFuture<Packet> processPacket(Packet packet) throws ComponentException, TigaseStringprepException {
+		if (StanzaType.set != packet.getType()) {
+			throw new ComponentException(Authorization.BAD_REQUEST);
+		}
+
+		Meet meet = meetRepository.getMeet(packet.getStanzaTo().getBareJID());
+		Participation participation = Optional.ofNullable(meet.getParticipation(packet.getStanzaFrom()))
+				.orElseThrow(() -> new ComponentException(Authorization.ITEM_NOT_FOUND, "You are not in the meet"));
+
+		Element layersElem = Optional.ofNullable(packet.getElemChild("layers", "tigase:meet:0"))
+				.orElseThrow(() -> new ComponentException(Authorization.BAD_REQUEST, "Missing `layers` element"));
+
+		List<LocalSubscriber.StreamLayers> layers = new ArrayList<>();
+		for (Element streamElem : Optional.ofNullable(layersElem.getChildren()).orElse(Collections.emptyList())) {
+			if ("stream".equals(streamElem.getName())) {
+				layers.add(parseStreamLayers(streamElem));
+			}
+		}
+		if (layers.isEmpty()) {
+			return CompletableFuture.completedFuture(packet.okResult((String) null, 0));
+		}
+
+		log.log(Level.FINEST, () -> "user " + packet.getStanzaFrom() + " selected layers " + layers);
+		return participation.configureLayers(layers).thenApply(x -> packet.okResult((String) null, 0));
+	}
+
+	private static LocalSubscriber.StreamLayers parseStreamLayers(Element streamElem) throws ComponentException {
+		String mid = Optional.ofNullable(streamElem.getAttributeStaticStr("mid"))
+				.orElseThrow(() -> new ComponentException(Authorization.BAD_REQUEST, "Missing `mid` attribute"));
+		try {
+			LocalSubscriber.Quality quality = Optional.ofNullable(streamElem.getAttributeStaticStr("quality"))
+					.map(LocalSubscriber.Quality::valueOf)
+					.orElse(LocalSubscriber.Quality.high);
+			Integer temporal = Optional.ofNullable(streamElem.getAttributeStaticStr("temporal"))
+					.map(Integer::parseInt)
+					.orElse(null);
+			if (temporal != null && (temporal < 0 || temporal > 2)) {
+				throw new ComponentException(Authorization.BAD_REQUEST, "Invalid `temporal` attribute value");
+			}
+			return new LocalSubscriber.StreamLayers(mid, quality, temporal);
+		} catch (IllegalArgumentException ex) {
+			throw new ComponentException(Authorization.BAD_REQUEST, "Invalid `quality` or `temporal` attribute value");
+		}
+	}
+}
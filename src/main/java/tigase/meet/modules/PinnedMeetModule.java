@@ -0,0 +1,97 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet.modules;
+
+import tigase.component.exceptions.ComponentException;
+import tigase.criteria.Criteria;
+import tigase.criteria.ElementCriteria;
+import tigase.kernel.beans.Bean;
+import tigase.kernel.beans.Inject;
+import tigase.meet.IMeetRepository;
+import tigase.meet.Meet;
+import tigase.meet.MeetComponent;
+import tigase.meet.Participation;
+import tigase.meet.janus.videoroom.Publisher;
+import tigase.server.Packet;
+import tigase.util.stringprep.TigaseStringprepException;
+import tigase.xml.Element;
+import tigase.xmpp.Authorization;
+import tigase.xmpp.StanzaType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+
+@Bean(name = "pinnedMeetModule", parent = MeetComponent.class, active = true)
+public class PinnedMeetModule extends AbstractModule {
+
+	private static final Criteria CRITERIA = ElementCriteria.name("iq").add(ElementCriteria.name("pinned", "tigase:meet:0"));
+
+	private static final String[] FEATURES = new String[] { "tigase:meet:0:pinned" };
+
+	@Inject
+	private IMeetRepository meetRepository;
+
+	@Override
+	public String[] getFeatures() {
+		return FEATURES;
+	}
+
+	@Override
+	public Criteria getModuleCriteria() {
+		return CRITERIA;
+	}
+
+	@Override
+	public CompletableFuture<Packet> processPacket(Packet packet) throws ComponentException, TigaseStringprepException {
+		if (StanzaType.set != packet.getType()) {
+			throw new ComponentException(Authorization.BAD_REQUEST);
+		}
+
+		Meet meet = meetRepository.getMeet(packet.getStanzaTo().getBareJID());
+		Participation participation = Optional.ofNullable(meet.getParticipation(packet.getStanzaFrom()))
+				.orElseThrow(() -> new ComponentException(Authorization.ITEM_NOT_FOUND, "You are not in the meet"));
+
+		Element pinnedElem = Optional.ofNullable(packet.getElemChild("pinned", "tigase:meet:0"))
+				.orElseThrow(() -> new ComponentException(Authorization.BAD_REQUEST, "Missing `pinned` element"));
+
+		List<Long> publisherIds = new ArrayList<>();
+		for (Element publisherElem : Optional.ofNullable(pinnedElem.getChildren()).orElse(Collections.emptyList())) {
+			if ("publisher".equals(publisherElem.getName())) {
+				publisherIds.add(findPublisher(participation, publisherElem).getId());
+			}
+		}
+
+		log.log(Level.FINEST, () -> "user " + packet.getStanzaFrom() + " pinned publishers " + publisherIds);
+		participation.setPinned(publisherIds);
+		return CompletableFuture.completedFuture(packet.okResult((String) null, 0));
+	}
+
+	private static Publisher findPublisher(Participation participation, Element publisherElem) throws ComponentException {
+		String jid = Optional.ofNullable(publisherElem.getAttributeStaticStr("jid"))
+				.orElseThrow(() -> new ComponentException(Authorization.BAD_REQUEST, "Missing `jid` attribute"));
+		return participation.getPublishers()
+				.stream()
+				.filter(publisher -> jid.equals(publisher.getDisplay()))
+				.findFirst()
+				.orElseThrow(() -> new ComponentException(Authorization.ITEM_NOT_FOUND, "Publisher " + jid + " not found"));
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet.utils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Collects items offered within a short window and passes them to the consumer as a single batch.
+ *
+ * Window starts with the first item offered after the previous batch was passed. With zero window each item is passed
+ * to the consumer immediately, as a single item batch.
+ */
+public class BatchQueue<T> {
+
+	private static final Logger log = Logger.getLogger(BatchQueue.class.getCanonicalName());
+
+	private final Consumer<List<T>> consumer;
+	private final Executor delayedExecutor;
+	private List<T> items = new ArrayList<>();
+	// no. of the current window, so delayed flush of a window which was already flushed is ignored
+	private long window;
+
+	public BatchQueue(Duration window, Consumer<List<T>> consumer) {
+		this.consumer = consumer;
+		this.delayedExecutor = window.isZero() || window.isNegative()
+							   ? null
+							   : CompletableFuture.delayedExecutor(window.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	public void offer(T item) {
+		if (delayedExecutor == null) {
+			consumer.accept(List.of(item));
+			return;
+		}
+		long current;
+		synchronized (this) {
+			items.add(item);
+			if (items.size() > 1) {
+				return;
+			}
+			current = window;
+		}
+		delayedExecutor.execute(() -> flush(current));
+	}
+
+	/**
+	 * Passes collected items to the consumer without waiting for the end of the window.
+	 */
+	public void flush() {
+		List<T> batch;
+		synchronized (this) {
+			batch = takeBatch();
+		}
+		pass(batch);
+	}
+
+	public synchronized int size() {
+		return items.size();
+	}
+
+	private void flush(long expectedWindow) {
+		List<T> batch;
+		synchronized (this) {
+			if (window != expectedWindow) {
+				return;
+			}
+			batch = takeBatch();
+		}
+		pass(batch);
+	}
+
+	private List<T> takeBatch() {
+		if (items.isEmpty()) {
+			return null;
+		}
+		List<T> batch = items;
+		items = new ArrayList<>();
+		window++;
+		return batch;
+	}
+
+	private void pass(List<T> batch) {
+		if (batch == null) {
+			return;
+		}
+		try {
+			consumer.accept(batch);
+		} catch (Throwable ex) {
+			log.log(Level.WARNING, ex, () -> "processing of batch of " + batch.size() + " items failed");
+		}
+	}
+
+}
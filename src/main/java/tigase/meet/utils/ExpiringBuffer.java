@@ -0,0 +1,95 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet.utils;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.LongSupplier;
+
+/**
+ * Buffer of items received for keys which are not ready to process them yet.
+ *
+ * Items are accepted only for keys for which they are expected, and only until the TTL of the key elapses, so items
+ * for keys which never become ready are not kept forever.
+ */
+public class ExpiringBuffer<K, V> {
+
+	private final LongSupplier nanoTime;
+	private final Map<K, Entry<V>> entries = new HashMap<>();
+	private volatile Duration ttl;
+
+	public ExpiringBuffer(Duration ttl) {
+		this(ttl, System::nanoTime);
+	}
+
+	ExpiringBuffer(Duration ttl, LongSupplier nanoTime) {
+		this.ttl = ttl;
+		this.nanoTime = nanoTime;
+	}
+
+	public void setTtl(Duration ttl) {
+		this.ttl = ttl;
+	}
+
+	/**
+	 * Starts accepting items for the key.
+	 */
+	public synchronized void expect(K key) {
+		long now = nanoTime.getAsLong();
+		removeExpired(now);
+		entries.putIfAbsent(key, new Entry<>(now + ttl.toNanos(), new ArrayList<>()));
+	}
+
+	/**
+	 * Adds item to the buffer if items for the key are expected.
+	 *
+	 * @return <code>false</code> if items for the key are not expected (or its TTL elapsed)
+	 */
+	public synchronized boolean offer(K key, V value) {
+		removeExpired(nanoTime.getAsLong());
+		Entry<V> entry = entries.get(key);
+		if (entry == null) {
+			return false;
+		}
+		entry.values().add(value);
+		return true;
+	}
+
+	/**
+	 * Stops accepting items for the key and returns items buffered for it.
+	 */
+	public synchronized List<V> remove(K key) {
+		Entry<V> entry = entries.remove(key);
+		if (entry == null || entry.expiresAt() - nanoTime.getAsLong() < 0) {
+			return Collections.emptyList();
+		}
+		return entry.values();
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	private void removeExpired(long now) {
+		entries.values().removeIf(entry -> entry.expiresAt() - now < 0);
+	}
+
+	private record Entry<V>(long expiresAt, List<V> values) {
+
+	}
+}
@@ -0,0 +1,152 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet.utils;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Executes tasks on the shared executor, one at a time and in order of submission for tasks with keys mapped to the
+ * same stripe. Tasks with keys mapped to different stripes are executed in parallel.
+ */
+public class StripedExecutor {
+
+	private static final Logger log = Logger.getLogger(StripedExecutor.class.getCanonicalName());
+	// max. no. of tasks executed by a stripe before giving the thread back to the executor
+	private static final int BATCH_SIZE = 64;
+
+	private final Executor executor;
+	private final Stripe[] stripes;
+	private final AtomicInteger queueSize = new AtomicInteger();
+	private final LongAdder executedTasks = new LongAdder();
+	private final LongAdder totalLag = new LongAdder();
+	private final AtomicLong maxLag = new AtomicLong();
+
+	public StripedExecutor(Executor executor, int stripes) {
+		if (stripes < 1) {
+			throw new IllegalArgumentException("No. of stripes must be greater than 0!");
+		}
+		this.executor = executor;
+		this.stripes = new Stripe[stripes];
+		for (int i = 0; i < stripes; i++) {
+			this.stripes[i] = new Stripe();
+		}
+	}
+
+	public void execute(long key, Runnable task) {
+		Stripe stripe = stripes[(int) Math.floorMod(key ^ (key >>> 32), (long) stripes.length)];
+		queueSize.incrementAndGet();
+		stripe.queue.offer(new Task(task, System.nanoTime()));
+		stripe.schedule();
+	}
+
+	/**
+	 * Returns no. of tasks waiting for execution.
+	 */
+	public int getQueueSize() {
+		return queueSize.get();
+	}
+
+	/**
+	 * Returns average time between submission and start of execution of a task in nanoseconds since last call to
+	 * {@link #resetLagStatistics()}.
+	 */
+	public long getAverageLag() {
+		long executed = executedTasks.sum();
+		return executed == 0 ? 0 : totalLag.sum() / executed;
+	}
+
+	/**
+	 * Returns maximal time between submission and start of execution of a task in nanoseconds since last call to
+	 * {@link #resetLagStatistics()}.
+	 */
+	public long getMaxLag() {
+		return maxLag.get();
+	}
+
+	/**
+	 * Starts new period for which average and maximal lag is calculated.
+	 */
+	public void resetLagStatistics() {
+		executedTasks.reset();
+		totalLag.reset();
+		maxLag.set(0);
+	}
+
+	private class Stripe implements Runnable {
+
+		private final ConcurrentLinkedQueue<Task> queue = new ConcurrentLinkedQueue<>();
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+
+		private void schedule() {
+			if (scheduled.compareAndSet(false, true)) {
+				try {
+					executor.execute(this);
+				} catch (RuntimeException ex) {
+					scheduled.set(false);
+					throw ex;
+				}
+			}
+		}
+
+		@Override
+		public void run() {
+			int executed = 0;
+			Task task;
+			while (executed++ < BATCH_SIZE && (task = queue.poll()) != null) {
+				queueSize.decrementAndGet();
+				long lag = System.nanoTime() - task.submitted;
+				executedTasks.increment();
+				totalLag.add(lag);
+				maxLag.accumulateAndGet(lag, Math::max);
+				try {
+					task.runnable.run();
+				} catch (Throwable ex) {
+					log.log(Level.WARNING, ex, () -> "execution of task failed");
+				}
+			}
+			if (executed > BATCH_SIZE && !queue.isEmpty()) {
+				executor.execute(this);
+				return;
+			}
+			scheduled.set(false);
+			// task could be added after the queue was found empty but before the flag was cleared
+			if (!queue.isEmpty()) {
+				schedule();
+			}
+		}
+	}
+
+	private static class Task {
+
+		private final Runnable runnable;
+		private final long submitted;
+
+		private Task(Runnable runnable, long submitted) {
+			this.runnable = runnable;
+			this.submitted = submitted;
+		}
+
+	}
+}
@@ -0,0 +1,155 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet.utils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Hashed timing wheel for a large number of short timeouts which are usually cancelled before they expire.
+ *
+ * Scheduling and cancelling are O(1). Timeouts are not executed by the wheel itself - {@link #advance()} has to be
+ * called periodically (ie. from a scheduled executor) with period equal to the tick duration, so the precision of
+ * a timeout is a single tick.
+ */
+public class TimingWheel {
+
+	private static final Logger log = Logger.getLogger(TimingWheel.class.getCanonicalName());
+
+	private final long tickNanos;
+	private final long startNanos;
+	private final Set<Timeout>[] buckets;
+	private long currentTick = 0;
+
+	public TimingWheel(Duration tickDuration, int wheelSize) {
+		this(tickDuration, wheelSize, System.nanoTime());
+	}
+
+	public TimingWheel(Duration tickDuration, int wheelSize, long startNanos) {
+		if (tickDuration.isNegative() || tickDuration.isZero()) {
+			throw new IllegalArgumentException("Tick duration must be positive!");
+		}
+		if (wheelSize < 1) {
+			throw new IllegalArgumentException("Wheel size must be greater than 0!");
+		}
+		this.tickNanos = tickDuration.toNanos();
+		this.startNanos = startNanos;
+		this.buckets = new Set[wheelSize];
+		for (int i = 0; i < wheelSize; i++) {
+			buckets[i] = new LinkedHashSet<>();
+		}
+	}
+
+	public Duration getTickDuration() {
+		return Duration.ofNanos(tickNanos);
+	}
+
+	/**
+	 * Schedules execution of the task after passing of the delay.
+	 * @return timeout which may be used to cancel execution of the task
+	 */
+	public Timeout schedule(Duration delay, Runnable task) {
+		return schedule(delay, task, System.nanoTime());
+	}
+
+	public synchronized Timeout schedule(Duration delay, Runnable task, long nowNanos) {
+		long deadlineTick = Math.max(ticksAt(nowNanos + delay.toNanos()), currentTick + 1);
+		Timeout timeout = new Timeout(this, deadlineTick, task);
+		buckets[bucketIndex(deadlineTick)].add(timeout);
+		return timeout;
+	}
+
+	/**
+	 * Executes all timeouts which expired until now.
+	 */
+	public void advance() {
+		advance(System.nanoTime());
+	}
+
+	public void advance(long nowNanos) {
+		List<Timeout> expired = new ArrayList<>();
+		synchronized (this) {
+			long targetTick = ticksAt(nowNanos);
+			while (currentTick < targetTick) {
+				currentTick++;
+				Set<Timeout> bucket = buckets[bucketIndex(currentTick)];
+				bucket.removeIf(timeout -> {
+					if (timeout.deadlineTick <= currentTick) {
+						expired.add(timeout);
+						return true;
+					}
+					return false;
+				});
+			}
+		}
+		for (Timeout timeout : expired) {
+			try {
+				timeout.task.run();
+			} catch (Throwable ex) {
+				log.log(Level.WARNING, ex, () -> "execution of expired timeout failed");
+			}
+		}
+	}
+
+	public synchronized int size() {
+		int size = 0;
+		for (Set<Timeout> bucket : buckets) {
+			size += bucket.size();
+		}
+		return size;
+	}
+
+	private synchronized boolean cancel(Timeout timeout) {
+		return buckets[bucketIndex(timeout.deadlineTick)].remove(timeout);
+	}
+
+	private long ticksAt(long nanos) {
+		return Math.max(0, nanos - startNanos) / tickNanos;
+	}
+
+	private int bucketIndex(long tick) {
+		return (int) (tick % buckets.length);
+	}
+
+	public static class Timeout {
+
+		private final TimingWheel wheel;
+		private final long deadlineTick;
+		private final Runnable task;
+
+		private Timeout(TimingWheel wheel, long deadlineTick, Runnable task) {
+			this.wheel = wheel;
+			this.deadlineTick = deadlineTick;
+			this.task = task;
+		}
+
+		/**
+		 * Cancels execution of the task.
+		 * @return <code>true</code> if the task was waiting for execution
+		 */
+		public boolean cancel() {
+			return wheel.cancel(this);
+		}
+
+	}
+}
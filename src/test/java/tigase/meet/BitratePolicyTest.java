@@ -0,0 +1,55 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BitratePolicyTest {
+
+	@Test
+	public void testThresholds() {
+		BitratePolicy policy = BitratePolicy.parse(new String[]{"10=500000", "1=2000000", "5=1000000"});
+		assertEquals(2000000, policy.getBitrate(1));
+		assertEquals(2000000, policy.getBitrate(4));
+		assertEquals(1000000, policy.getBitrate(5));
+		assertEquals(500000, policy.getBitrate(10));
+		assertEquals(500000, policy.getBitrate(100));
+
+		policy = BitratePolicy.parse(new String[]{"3=1000000"});
+		assertEquals(0, policy.getBitrate(2));
+		assertEquals(1000000, policy.getBitrate(3));
+
+		assertTrue(BitratePolicy.parse(null).isUnlimited());
+		assertEquals(0, BitratePolicy.UNLIMITED.getBitrate(50));
+	}
+
+	@Test
+	public void testInvalid() {
+		for (String threshold : new String[]{"1000000", "0=1000000", "a=b"}) {
+			try {
+				BitratePolicy.parse(new String[]{threshold});
+				fail("Threshold " + threshold + " should be rejected");
+			} catch (IllegalArgumentException ex) {
+				// expected
+			}
+		}
+	}
+
+}
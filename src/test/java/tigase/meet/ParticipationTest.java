@@ -0,0 +1,232 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet;
+
+import org.junit.Test;
+import tigase.meet.janus.JSEP;
+import tigase.meet.janus.JanusPlugin;
+import tigase.meet.janus.videoroom.LocalPublisher;
+import tigase.meet.janus.videoroom.LocalSubscriber;
+import tigase.meet.janus.videoroom.Publisher;
+import tigase.meet.jingle.Candidate;
+import tigase.meet.jingle.Content;
+import tigase.meet.jingle.ContentAction;
+import tigase.meet.jingle.SDP;
+import tigase.meet.jingle.SDPTest;
+import tigase.util.common.TimerTask;
+import tigase.xmpp.jid.BareJID;
+import tigase.xmpp.jid.JID;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ParticipationTest {
+
+	private static final String CANDIDATE_1 = "candidate:1 1 udp 2122260223 10.0.0.1 50000 typ host";
+	private static final String CANDIDATE_2 = "candidate:2 1 udp 1686052607 192.0.2.1 50001 typ srflx raddr 10.0.0.1 rport 50000";
+
+	@Test
+	public void testHalfTricklePublisherCandidates() throws Exception {
+		Meet meet = new Meet(new TestMeetRepository(Duration.ofMillis(200)), null, 1234L,
+							 BareJID.bareJIDInstanceNS("meet@example.com"));
+		JSEP answer = new JSEP(JSEP.Type.answer, SDPTest.TEST_STRING);
+		TestLocalPublisher publisher = new TestLocalPublisher(answer, new JanusPlugin.Candidate("0", 0, CANDIDATE_1), false);
+		Participation participation = new Participation(meet, JID.jidInstanceNS("user@example.com/res"), publisher,
+														new LocalSubscriber(null, 1234L));
+		RecordingListener listener = new RecordingListener();
+		participation.setListener(listener);
+		participation.startPublisherSession("s1");
+
+		SDP offer = SDP.from(SDPTest.TEST_STRING, name -> Content.Creator.initiator, Content.Creator.initiator);
+		participation.sendPublisherSDP("s1", ContentAction.init, offer).get(1, TimeUnit.SECONDS);
+
+		// candidate collected while waiting is sent within session-accept
+		SDP accepted = listener.sessionAccept.get(2, TimeUnit.SECONDS);
+		assertEquals(List.of(Candidate.from(CANDIDATE_1).toSDP()), candidatesOf(accepted.getContent("0").orElseThrow()));
+
+		// candidate received later is trickled after session-accept
+		publisher.receivedCandidate(new JanusPlugin.Candidate("0", 0, CANDIDATE_2));
+		Content trickled = listener.transportInfo.get(2, TimeUnit.SECONDS);
+		assertEquals(List.of(Candidate.from(CANDIDATE_2).toSDP()), candidatesOf(trickled));
+
+		assertEquals(List.of("session-accept", "transport-info"), listener.events);
+	}
+
+	@Test
+	public void testHalfTrickleCompletedBeforeTimeout() throws Exception {
+		Meet meet = new Meet(new TestMeetRepository(Duration.ofSeconds(30)), null, 1234L,
+							 BareJID.bareJIDInstanceNS("meet@example.com"));
+		JSEP answer = new JSEP(JSEP.Type.answer, SDPTest.TEST_STRING);
+		TestLocalPublisher publisher = new TestLocalPublisher(answer, new JanusPlugin.Candidate("0", 0, CANDIDATE_1), true);
+		Participation participation = new Participation(meet, JID.jidInstanceNS("user@example.com/res"), publisher,
+														new LocalSubscriber(null, 1234L));
+		RecordingListener listener = new RecordingListener();
+		participation.setListener(listener);
+		participation.startPublisherSession("s1");
+
+		SDP offer = SDP.from(SDPTest.TEST_STRING, name -> Content.Creator.initiator, Content.Creator.initiator);
+		participation.sendPublisherSDP("s1", ContentAction.init, offer).get(1, TimeUnit.SECONDS);
+
+		// end of candidates reported by Janus releases session-accept long before the timeout
+		SDP accepted = listener.sessionAccept.get(2, TimeUnit.SECONDS);
+		assertEquals(List.of(Candidate.from(CANDIDATE_1).toSDP()), candidatesOf(accepted.getContent("0").orElseThrow()));
+		assertEquals(List.of("session-accept"), listener.events);
+	}
+
+	@Test
+	public void testPublisherCandidatesWithoutHalfTrickle() throws Exception {
+		Meet meet = new Meet(new TestMeetRepository(Duration.ZERO), null, 1234L,
+							 BareJID.bareJIDInstanceNS("meet@example.com"));
+		JSEP answer = new JSEP(JSEP.Type.answer, SDPTest.TEST_STRING);
+		TestLocalPublisher publisher = new TestLocalPublisher(answer, new JanusPlugin.Candidate("0", 0, CANDIDATE_1), false);
+		Participation participation = new Participation(meet, JID.jidInstanceNS("user@example.com/res"), publisher,
+														new LocalSubscriber(null, 1234L));
+		RecordingListener listener = new RecordingListener();
+		participation.setListener(listener);
+		participation.startPublisherSession("s1");
+
+		SDP offer = SDP.from(SDPTest.TEST_STRING, name -> Content.Creator.initiator, Content.Creator.initiator);
+		participation.sendPublisherSDP("s1", ContentAction.init, offer).get(1, TimeUnit.SECONDS);
+
+		SDP accepted = listener.sessionAccept.get(2, TimeUnit.SECONDS);
+		assertEquals(Collections.emptyList(), candidatesOf(accepted.getContent("0").orElseThrow()));
+		Content trickled = listener.transportInfo.get(2, TimeUnit.SECONDS);
+		assertEquals(List.of(Candidate.from(CANDIDATE_1).toSDP()), candidatesOf(trickled));
+		assertEquals(List.of("session-accept", "transport-info"), listener.events);
+	}
+
+	private static List<String> candidatesOf(Content content) {
+		return content.getTransports()
+				.get(0)
+				.getCandidates()
+				.stream()
+				.map(Candidate::toSDP)
+				.toList();
+	}
+
+	private static class TestMeetRepository extends MeetRepository {
+
+		private final Duration halfTrickleTimeout;
+
+		TestMeetRepository(Duration halfTrickleTimeout) {
+			this.halfTrickleTimeout = halfTrickleTimeout;
+		}
+
+		@Override
+		public Duration getHalfTrickleTimeout() {
+			return halfTrickleTimeout;
+		}
+
+		@Override
+		protected TimerTask scheduleJoinTimeoutTask(Meet meet) {
+			return null;
+		}
+	}
+
+	// answers the offer like Janus: with JSEP event received before the response and a candidate trickled right after,
+	// optionally followed by end of candidates
+	private static class TestLocalPublisher extends LocalPublisher {
+
+		private final JSEP answer;
+		private final JanusPlugin.Candidate candidate;
+		private final boolean completed;
+		private Listener listener;
+
+		TestLocalPublisher(JSEP answer, JanusPlugin.Candidate candidate, boolean completed) {
+			super(null, 1234L, 1, 1, Collections.emptyList());
+			this.answer = answer;
+			this.candidate = candidate;
+			this.completed = completed;
+		}
+
+		@Override
+		public void setListener(Listener listener) {
+			this.listener = listener;
+			super.setListener(listener);
+		}
+
+		@Override
+		public CompletableFuture<JSEP> publish(JSEP jsep) {
+			listener.receivedPublisherSDP(answer);
+			receivedCandidate(candidate);
+			if (completed) {
+				receivedCandidatesCompleted();
+			}
+			return CompletableFuture.completedFuture(answer);
+		}
+
+		@Override
+		public CompletableFuture<Void> sendCandidates(List<JanusPlugin.Candidate> candidates) {
+			return CompletableFuture.completedFuture(null);
+		}
+	}
+
+	private static class RecordingListener implements Participation.Listener {
+
+		private final List<String> events = new CopyOnWriteArrayList<>();
+		private final CompletableFuture<SDP> sessionAccept = new CompletableFuture<>();
+		private final CompletableFuture<Content> transportInfo = new CompletableFuture<>();
+
+		@Override
+		public void publishersJoined(Collection<Publisher> joined) {
+		}
+
+		@Override
+		public void publishersLeft(Collection<Publisher> left) {
+		}
+
+		@Override
+		public void publisherSwitched(Publisher publisher, List<String> mids) {
+		}
+
+		@Override
+		public void receivedPublisherSDP(String sessionId, ContentAction action, SDP sdp) {
+			events.add("session-accept");
+			sessionAccept.complete(sdp);
+		}
+
+		@Override
+		public void receivedPublisherCandidate(String sessionId, Content content) {
+			events.add("transport-info");
+			transportInfo.complete(content);
+		}
+
+		@Override
+		public void terminatedPublisherSession(String sessionId) {
+		}
+
+		@Override
+		public void receivedSubscriberSDP(String sessionId, ContentAction action, SDP sdp) {
+		}
+
+		@Override
+		public void receivedSubscriberCandidate(String sessionId, Content content) {
+		}
+
+		@Override
+		public void terminatedSubscriberSession(String sessionId) {
+		}
+	}
+}
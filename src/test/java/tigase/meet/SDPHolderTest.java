@@ -0,0 +1,44 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet;
+
+import org.junit.Test;
+import tigase.meet.janus.JSEP;
+import tigase.meet.jingle.Content;
+import tigase.meet.jingle.SDP;
+import tigase.meet.jingle.SDPTest;
+
+import static org.junit.Assert.*;
+
+public class SDPHolderTest {
+
+	@Test
+	public void testIndexes() {
+		SDP sdp = SDP.from(SDPTest.TEST_STRING, name -> Content.Creator.initiator, Content.Creator.initiator);
+		Participation.SDPHolder holder = new Participation.SDPHolder(sdp, new JSEP(JSEP.Type.offer, SDPTest.TEST_STRING));
+
+		assertEquals(0, holder.getMLineIndex("0"));
+		assertEquals(3, holder.getMLineIndex("3"));
+		assertEquals(-1, holder.getMLineIndex("4"));
+
+		assertEquals("0", holder.getFirstContentName());
+		assertEquals(4, holder.transports().size());
+		assertEquals("HTzj", holder.transports().get("2").getUfrag().get());
+	}
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet.janus;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class JanusMessageDecoderTest {
+
+	private static final String EVENT = "{\"janus\":\"event\",\"session_id\":4389057620134219,\"sender\":2,\"transaction\":\"1a\"," +
+			"\"plugindata\":{\"plugin\":\"janus.plugin.videoroom\",\"data\":{\"videoroom\":\"joined\",\"room\":1234," +
+			"\"publishers\":[{\"id\":1,\"display\":\"Zo\u00eb \ud83d\ude00\"}],\"temporary\":true,\"ratio\":0.5," +
+			"\"missing\":null}},\"jsep\":{\"type\":\"answer\",\"sdp\":\"v=0\\r\\n\"}}";
+
+	@Test
+	public void testSingleFragment() throws IOException {
+		JanusMessageDecoder decoder = new JanusMessageDecoder();
+		assertEvent(decoder.feed(EVENT, true));
+		// decoder is reusable
+		assertEvent(decoder.feed(EVENT, true));
+	}
+
+	@Test
+	public void testFragments() throws IOException {
+		// small buffer and fragments of every length, splitting surrogate pairs as well
+		JanusMessageDecoder decoder = new JanusMessageDecoder(16);
+		for (int size = 1; size < EVENT.length(); size += 7) {
+			JanusMessage result = null;
+			for (int i = 0; i < EVENT.length(); i += size) {
+				int end = Math.min(EVENT.length(), i + size);
+				result = decoder.feed(EVENT.subSequence(i, end), end == EVENT.length());
+				if (end < EVENT.length()) {
+					assertNull(result);
+				}
+			}
+			assertEvent(result);
+		}
+	}
+
+	@Test
+	public void testBytes() throws IOException {
+		byte[] bytes = EVENT.getBytes(StandardCharsets.UTF_8);
+		JanusMessageDecoder decoder = new JanusMessageDecoder(16);
+		assertEvent(decoder.feed(bytes, 0, bytes.length, true));
+		// fragments split multi-byte characters as well
+		for (int size = 1; size < bytes.length; size += 7) {
+			JanusMessage result = null;
+			for (int i = 0; i < bytes.length; i += size) {
+				int length = Math.min(size, bytes.length - i);
+				result = decoder.feed(bytes, i, length, i + length == bytes.length);
+			}
+			assertEvent(result);
+		}
+		byte[] incomplete = "{\"janus\":".getBytes(StandardCharsets.UTF_8);
+		try {
+			decoder.feed(incomplete, 0, incomplete.length, true);
+			fail("Decoding should fail for incomplete message");
+		} catch (IOException ex) {
+			// expected
+		}
+		assertEvent(decoder.feed(bytes, 0, bytes.length, true));
+	}
+
+	@Test
+	public void testInvalidMessage() throws IOException {
+		JanusMessageDecoder decoder = new JanusMessageDecoder();
+		assertInvalid(decoder, "{\"janus\":");
+		assertInvalid(decoder, "[1,2]");
+		// decoder recovers after failure
+		assertEvent(decoder.feed(EVENT, true));
+	}
+
+	@Test
+	public void testMessageTypes() throws IOException {
+		JanusMessageDecoder decoder = new JanusMessageDecoder();
+		JanusMessage.Trickle trickle = (JanusMessage.Trickle) decoder.feed(
+				"{\"janus\":\"trickle\",\"session_id\":1,\"sender\":2,\"candidate\":{\"sdpMid\":\"0\"," +
+						"\"sdpMLineIndex\":0,\"candidate\":\"candidate:1 1 udp 2015363327 10.0.0.1 5000 typ host\"}}", true);
+		assertEquals(2, trickle.sender());
+		assertEquals(1, trickle.candidates().size());
+		assertFalse(trickle.completed());
+
+		trickle = (JanusMessage.Trickle) decoder.feed(
+				"{\"janus\":\"trickle\",\"session_id\":1,\"sender\":2,\"candidate\":{\"completed\":true}}", true);
+		assertTrue(trickle.candidates().isEmpty());
+		assertTrue(trickle.completed());
+
+		JanusMessage.Error error = (JanusMessage.Error) decoder.feed(
+				"{\"janus\":\"error\",\"transaction\":\"5\",\"error\":{\"code\":458,\"reason\":\"No such session\"}}",
+				true);
+		assertEquals(458, error.code());
+		assertEquals("5", error.transaction());
+
+		JanusMessage.Success success = (JanusMessage.Success) decoder.feed(
+				"{\"janus\":\"success\",\"transaction\":\"6\",\"data\":{\"id\":8589934592}}", true);
+		assertEquals(8589934592L, success.id());
+
+		JanusMessage.Media media = (JanusMessage.Media) decoder.feed(
+				"{\"janus\":\"media\",\"session_id\":1,\"sender\":2,\"type\":\"video\",\"receiving\":true}", true);
+		assertEquals("video", media.type());
+		assertTrue(media.receiving());
+	}
+
+	private void assertInvalid(JanusMessageDecoder decoder, String message) {
+		try {
+			decoder.feed(message, true);
+			fail("Decoding should fail for " + message);
+		} catch (IOException ex) {
+			// expected
+		}
+	}
+
+	private void assertEvent(JanusMessage message) {
+		assertTrue(message instanceof JanusMessage.Event);
+		JanusMessage.Event event = (JanusMessage.Event) message;
+		assertEquals(4389057620134219L, event.sessionId());
+		assertEquals(2, event.sender());
+		assertEquals("1a", event.transaction());
+		assertEquals("janus.plugin.videoroom", event.pluginData().plugin());
+		Map<String, Object> data = event.pluginData().data();
+		assertEquals(1234, ((Number) data.get("room")).intValue());
+		assertEquals(Boolean.TRUE, data.get("temporary"));
+		assertEquals(0.5f, data.get("ratio"));
+		assertTrue(data.containsKey("missing"));
+		List<Map<String, Object>> publishers = (List<Map<String, Object>>) data.get("publishers");
+		assertEquals("Zo\u00eb \ud83d\ude00", publishers.get(0).get("display"));
+		assertEquals("{\"type\":\"answer\",\"sdp\":\"v=0\\r\\n\"}", event.rawJsep().toString());
+		assertEquals(JSEP.Type.answer, event.jsep().getType());
+		assertEquals("v=0\r\n", event.jsep().getSdp());
+	}
+}
@@ -34,7 +34,6 @@ import tigase.util.log.LogFormatter;
 
 import java.io.IOException;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.logging.ConsoleHandler;
@@ -96,8 +95,9 @@ public class JanusServiceTest extends AbstractKernelTestCase {
 		CompletableFuture<JanusConnection> future = janusService.newConnection();
 		JanusConnection connection = future.get();
 		CompletableFuture<JanusSession> result1 = connection.createSession();
-		CompletableFuture<Map<String,Object>> result2 = connection.getInfo();
+		CompletableFuture<JanusMessage> result2 = connection.getInfo();
 		CompletableFuture.allOf(result1, result2).get();
+		Assert.assertTrue(result2.get() instanceof JanusMessage.ServerInfo);
 
 		JanusSession session = result1.get();
 		CompletableFuture<JanusVideoRoomPlugin> pluginFuture = session.attachPlugin(JanusVideoRoomPlugin.class);
@@ -0,0 +1,63 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet.janus;
+
+import org.junit.Test;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+
+public class JanusSessionPoolTest {
+
+	@Test
+	public void testTargetSizeFollowsJoinRate() {
+		JanusConnectionPool connectionPool = new JanusConnectionPool(URI.create("ws://localhost:8188/"), 1,
+																	 uri -> CompletableFuture.failedFuture(
+																			 new JanusException(-1, "unavailable")),
+																	 new JanusSessionPool.Settings(2, 8,
+																								   Duration.ofSeconds(
+																										   5)));
+		JanusSessionPool sessionPool = connectionPool.getSessionPool();
+		assertEquals(2, sessionPool.getTargetSize());
+
+		for (int second = 0; second < 10; second++) {
+			sessionPool.acquire(second);
+			sessionPool.updateTargetSize();
+		}
+		int target = sessionPool.getTargetSize();
+		assertTrue(target > 2);
+		assertTrue(target <= 5);
+
+		for (int second = 0; second < 10; second++) {
+			for (int i = 0; i < 10; i++) {
+				sessionPool.acquire(i);
+			}
+			sessionPool.updateTargetSize();
+		}
+		assertEquals(8, sessionPool.getTargetSize());
+
+		for (int second = 0; second < 60; second++) {
+			sessionPool.updateTargetSize();
+		}
+		assertEquals(2, sessionPool.getTargetSize());
+	}
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet.janus;
+
+import org.junit.Test;
+import org.newsclub.net.unix.AFSocketType;
+import org.newsclub.net.unix.AFUNIXDatagramSocket;
+import org.newsclub.net.unix.AFUNIXSocketAddress;
+
+import java.net.DatagramPacket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class JanusUnixSocketTransportTest {
+
+	@Test
+	public void testExchange() throws Exception {
+		Path dir = Files.createTempDirectory("janus");
+		Path path = dir.resolve("janus.sock");
+		try (AFUNIXDatagramSocket server = AFUNIXDatagramSocket.newInstance(AFSocketType.SOCK_SEQPACKET)) {
+			server.bind(AFUNIXSocketAddress.of(path));
+			server.listen(1);
+
+			LinkedBlockingQueue<JanusMessage> received = new LinkedBlockingQueue<>();
+			CountDownLatch closed = new CountDownLatch(1);
+			AtomicReference<Throwable> failure = new AtomicReference<>();
+			JanusTransport transport = JanusUnixSocketTransport.connect(URI.create("unix://" + path), new JanusTransport.Listener() {
+				@Override
+				public void onMessage(JanusMessage message) {
+					received.offer(message);
+				}
+
+				@Override
+				public void onClose(int statusCode, String reason) {
+					closed.countDown();
+				}
+
+				@Override
+				public void onError(Throwable error) {
+					failure.set(error);
+				}
+			}).get(5, TimeUnit.SECONDS);
+
+			try (AFUNIXDatagramSocket client = (AFUNIXDatagramSocket) server.accept()) {
+				String request = "{\"janus\":\"keepalive\",\"session_id\":1,\"transaction\":\"a\"}";
+				transport.send(request).get(5, TimeUnit.SECONDS);
+				transport.send(request).get(5, TimeUnit.SECONDS);
+				// every message is received as a separate packet
+				for (int i = 0; i < 2; i++) {
+					DatagramPacket packet = new DatagramPacket(new byte[1024], 1024);
+					client.receive(packet);
+					assertEquals(request, new String(packet.getData(), 0, packet.getLength(), StandardCharsets.UTF_8));
+				}
+
+				send(client, "{\"janus\":\"ack\",\"session_id\":1,\"transaction\":\"a\"}");
+				send(client, "{\"janus\":\"webrtcup\",\"session_id\":1,\"sender\":2}");
+				assertTrue(received.poll(5, TimeUnit.SECONDS) instanceof JanusMessage.Ack);
+				assertTrue(received.poll(5, TimeUnit.SECONDS) instanceof JanusMessage.WebRTCUp);
+				assertEquals(1, closed.getCount());
+			}
+			// closed by Janus
+			assertTrue(closed.await(5, TimeUnit.SECONDS));
+			assertNull(failure.get());
+		} finally {
+			Files.deleteIfExists(path);
+			Files.deleteIfExists(dir);
+		}
+	}
+
+	@Test
+	public void testClose() throws Exception {
+		Path dir = Files.createTempDirectory("janus");
+		Path path = dir.resolve("janus.sock");
+		try (AFUNIXDatagramSocket server = AFUNIXDatagramSocket.newInstance(AFSocketType.SOCK_SEQPACKET)) {
+			server.bind(AFUNIXSocketAddress.of(path));
+			server.listen(1);
+
+			CountDownLatch closed = new CountDownLatch(1);
+			AtomicReference<Throwable> failure = new AtomicReference<>();
+			JanusTransport transport = JanusUnixSocketTransport.connect(URI.create("unix://" + path), new JanusTransport.Listener() {
+				@Override
+				public void onMessage(JanusMessage message) {
+				}
+
+				@Override
+				public void onClose(int statusCode, String reason) {
+					closed.countDown();
+				}
+
+				@Override
+				public void onError(Throwable error) {
+					failure.set(error);
+				}
+			}).get(5, TimeUnit.SECONDS);
+
+			try (AFUNIXDatagramSocket client = (AFUNIXDatagramSocket) server.accept()) {
+				// connection is kept while Janus is not sending anything
+				assertFalse(closed.await(200, TimeUnit.MILLISECONDS));
+				transport.close().get(5, TimeUnit.SECONDS);
+				assertTrue(closed.await(5, TimeUnit.SECONDS));
+			}
+			assertNull(failure.get());
+		} finally {
+			Files.deleteIfExists(path);
+			Files.deleteIfExists(dir);
+		}
+	}
+
+	private static void send(AFUNIXDatagramSocket socket, String message) throws Exception {
+		byte[] data = message.getBytes(StandardCharsets.UTF_8);
+		socket.send(new DatagramPacket(data, data.length));
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet.janus.videoroom;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class LastNSelectorTest {
+
+	@Test
+	public void testSelection() {
+		LastNSelector selector = new LastNSelector(2);
+		assertEquals(List.of(1L), selector.added(1).added());
+		assertEquals(List.of(2L), selector.added(2).added());
+		// no free slot for the third publisher
+		assertEquals(LastNSelector.Changes.NONE, selector.added(3));
+
+		// talking publisher replaces the least recent one
+		LastNSelector.Changes changes = selector.talking(3);
+		assertEquals(List.of(3L), changes.added());
+		assertEquals(List.of(2L), changes.removed());
+		assertEquals(LastNSelector.Changes.NONE, selector.talking(3));
+		assertEquals(Set.of(1L, 3L), selector.getSelected());
+
+		// pinned publisher is forwarded in addition to the recent speakers
+		assertEquals(List.of(2L), selector.setPinned(List.of(2L)).added());
+		assertEquals(Set.of(1L, 2L, 3L), selector.getSelected());
+		assertEquals(LastNSelector.Changes.NONE, selector.added(4));
+		changes = selector.talking(4);
+		assertEquals(List.of(4L), changes.added());
+		assertEquals(List.of(1L), changes.removed());
+
+		// publisher which left is replaced by the next most recent speaker
+		changes = selector.removed(4);
+		assertEquals(List.of(1L), changes.added());
+		assertEquals(List.of(), changes.removed());
+		assertEquals(Set.of(1L, 2L, 3L), selector.getSelected());
+
+		changes = selector.setPinned(List.of());
+		assertEquals(List.of(), changes.added());
+		assertEquals(List.of(2L), changes.removed());
+		assertEquals(Set.of(1L, 3L), selector.getSelected());
+	}
+
+	@Test
+	public void testSetPinned() {
+		LastNSelector selector = new LastNSelector(1);
+		selector.added(1);
+		selector.added(2);
+		selector.added(3);
+		assertEquals(Set.of(1L), selector.getSelected());
+
+		// unknown publisher is not pinned
+		LastNSelector.Changes changes = selector.setPinned(List.of(2L, 3L, 5L));
+		assertEquals(List.of(2L, 3L), changes.added());
+		assertEquals(Set.of(1L, 2L, 3L), selector.getSelected());
+
+		changes = selector.setPinned(List.of(3L));
+		assertEquals(List.of(), changes.added());
+		assertEquals(List.of(2L), changes.removed());
+
+		changes = selector.setPinned(List.of());
+		assertEquals(List.of(3L), changes.removed());
+		assertEquals(Set.of(1L), selector.getSelected());
+	}
+
+}
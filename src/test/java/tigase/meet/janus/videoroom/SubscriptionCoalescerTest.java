@@ -0,0 +1,117 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet.janus.videoroom;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class SubscriptionCoalescerTest {
+
+	@Test
+	public void testCoalescing() throws InterruptedException {
+		LinkedBlockingQueue<Update> updates = new LinkedBlockingQueue<>();
+		SubscriptionCoalescer coalescer = new SubscriptionCoalescer(Duration.ofMillis(50), (subscribe, unsubscribe) -> {
+			Update update = new Update(feeds(subscribe), feeds(unsubscribe), new CompletableFuture<>());
+			updates.offer(update);
+			return update.future();
+		});
+
+		coalescer.subscribe(List.of(new JanusVideoRoomPlugin.Stream(1, "0"), new JanusVideoRoomPlugin.Stream(1, "1")));
+		coalescer.subscribe(List.of(new JanusVideoRoomPlugin.Stream(2, "0")));
+		// feed 2 left before its subscription was sent
+		coalescer.unsubscribe(2);
+
+		Update first = updates.poll(5, TimeUnit.SECONDS);
+		assertNotNull(first);
+		assertEquals(List.of(1L, 1L), first.subscribe());
+		assertEquals(List.of(), first.unsubscribe());
+
+		// changes made while update is in progress are sent after it is finished
+		coalescer.subscribe(List.of(new JanusVideoRoomPlugin.Stream(3, "0")));
+		coalescer.unsubscribe(1);
+		assertNull(updates.poll(200, TimeUnit.MILLISECONDS));
+		first.future().complete(null);
+
+		Update second = updates.poll(5, TimeUnit.SECONDS);
+		assertNotNull(second);
+		assertEquals(List.of(3L), second.subscribe());
+		assertEquals(List.of(1L), second.unsubscribe());
+		second.future().complete(null);
+
+		assertNull(updates.poll(200, TimeUnit.MILLISECONDS));
+		assertFalse(coalescer.hasPendingChanges());
+	}
+
+	@Test
+	public void testFailedUpdate() throws InterruptedException {
+		LinkedBlockingQueue<Update> updates = new LinkedBlockingQueue<>();
+		SubscriptionCoalescer coalescer = new SubscriptionCoalescer(Duration.ofMillis(50), (subscribe, unsubscribe) -> {
+			Update update = new Update(feeds(subscribe), feeds(unsubscribe), new CompletableFuture<>());
+			updates.offer(update);
+			return update.future();
+		});
+
+		coalescer.subscribe(List.of(new JanusVideoRoomPlugin.Stream(1, "0")));
+		Update first = updates.poll(5, TimeUnit.SECONDS);
+		assertNotNull(first);
+		// stream is unsubscribed while its subscription is being sent
+		coalescer.unsubscribe(List.of(new JanusVideoRoomPlugin.Stream(1, "0")));
+		first.future().completeExceptionally(new RuntimeException("update failed"));
+
+		// stream was not subscribed, so it is not unsubscribed
+		assertNull(updates.poll(200, TimeUnit.MILLISECONDS));
+		assertFalse(coalescer.hasPendingChanges());
+
+		// stream of the failed update is not considered subscribed
+		coalescer.unsubscribe(1);
+		assertFalse(coalescer.hasPendingChanges());
+	}
+
+	@Test
+	public void testClose() throws InterruptedException {
+		LinkedBlockingQueue<Update> updates = new LinkedBlockingQueue<>();
+		SubscriptionCoalescer coalescer = new SubscriptionCoalescer(Duration.ofMillis(50), (subscribe, unsubscribe) -> {
+			Update update = new Update(feeds(subscribe), feeds(unsubscribe), new CompletableFuture<>());
+			updates.offer(update);
+			return update.future();
+		});
+
+		coalescer.subscribe(List.of(new JanusVideoRoomPlugin.Stream(1, "0")));
+		coalescer.close();
+		assertNull(updates.poll(200, TimeUnit.MILLISECONDS));
+
+		coalescer.subscribe(List.of(new JanusVideoRoomPlugin.Stream(2, "0")));
+		assertNull(updates.poll(200, TimeUnit.MILLISECONDS));
+	}
+
+	private static List<Long> feeds(List<JanusVideoRoomPlugin.Stream> streams) {
+		return streams.stream().map(JanusVideoRoomPlugin.Stream::getFeed).collect(Collectors.toList());
+	}
+
+	private record Update(List<Long> subscribe, List<Long> unsubscribe, CompletableFuture<Void> future) {
+
+	}
+}
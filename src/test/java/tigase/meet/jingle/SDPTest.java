@@ -19,6 +19,9 @@ package tigase.meet.jingle;
 
 import org.junit.Test;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.function.Function;
 
@@ -99,4 +102,110 @@ public class SDPTest {
 		assertEquals(sdpStr2, sdpStr1);
 	}
 
-}
\ No newline at end of file
+	@Test
+	public void testPayloadAttributesMatchedByPayloadType() {
+		String offer = ("v=0\n" + "o=- 4611731400430051336 2 IN IP4 127.0.0.1\n" + "s=-\n" + "t=0 0\n" +
+				"a=group:BUNDLE 0\n" + "m=audio 9 UDP/TLS/RTP/SAVPF 10 100\n" + "c=IN IP4 0.0.0.0\n" +
+				"a=mid:0\n" + "a=sendrecv\n" + "a=rtpmap:100 opus/48000/2\n" + "a=fmtp:100 minptime=10;useinbandfec=1\n" +
+				"a=rtcp-fb:100 transport-cc\n" + "a=rtpmap:10 L16/44100\n" + "a=ssrc:12 cname:a\n" +
+				"a=ssrc:123 cname:b\n" + "a=msid:stream track\n").replaceAll("\n", "\r\n");
+		SDP sdp = SDP.from(offer, name -> Content.Creator.initiator, Content.Creator.initiator);
+		assertNotNull(sdp);
+		assertEquals(List.of("0"), sdp.getBundle());
+		Description description = sdp.getContents().get(0).getDescription().get();
+
+		Payload l16 = description.getPayloads().get(0);
+		assertEquals("L16", l16.getName().get());
+		assertTrue(l16.getParameters().isEmpty());
+		assertTrue(l16.getRtcpFeedback().isEmpty());
+
+		Payload opus = description.getPayloads().get(1);
+		assertEquals("opus", opus.getName().get());
+		assertEquals(2, opus.getChannels());
+		assertEquals("minptime", opus.getParameters().get(0).getName());
+		assertEquals("useinbandfec", opus.getParameters().get(1).getName());
+		assertEquals(1, opus.getRtcpFeedback().size());
+
+		assertEquals(2, description.getSsrcs().size());
+		assertEquals(2, description.getSsrcs().get(0).getParameters().size());
+		assertEquals("a", description.getSsrcs().get(0).getParameters().get(0).getValue().get());
+		assertEquals("b", description.getSsrcs().get(1).getParameters().get(0).getValue().get());
+	}
+
+	@Test
+	public void testCryptoRoundTrip() {
+		String line = "a=crypto:1 AES_CM_128_HMAC_SHA1_80 inline:WVNfX19zZW1jdGwgKCkgewkyMjA7fQp9CnVubGVz|2^20|1:32";
+		String offer = TEST_STRING.replace("a=rtcp-mux\r\n", "a=rtcp-mux\r\n" + line + "\r\n");
+		SDP sdp = SDP.from(offer, name -> Content.Creator.initiator, Content.Creator.initiator);
+		Encryption encryption = sdp.getContents().get(0).getDescription().get().getEncryptions().get(0);
+		assertEquals("1", encryption.getTag());
+		assertEquals("AES_CM_128_HMAC_SHA1_80", encryption.getCryptoSuite());
+		assertTrue(sdp.toString("1", Content.Creator.initiator, SDP.Direction.outgoing).contains(line + "\r\n"));
+	}
+
+	@Test
+	public void testReuseOfUnchangedContents() {
+		Function<String,Content.Creator> creatorProvider = name -> Content.Creator.initiator;
+		SDP sdp1 = SDP.from(TEST_STRING + "\r\n", creatorProvider, Content.Creator.initiator);
+		// session version is incremented in each new offer
+		String changed = TEST_STRING.replace("a=sendonly\r\na=mid:3", "a=inactive\r\na=mid:3")
+				.replace("o=- 1623251477217656 2 ", "o=- 1623251477217656 3 ");
+		SDP sdp2 = SDP.from(changed + "\r\n", creatorProvider, Content.Creator.initiator, sdp1);
+
+		for (int i = 0; i < 3; i++) {
+			assertSame(sdp1.getContents().get(i), sdp2.getContents().get(i));
+		}
+		assertNotSame(sdp1.getContents().get(3), sdp2.getContents().get(3));
+
+		Map<ContentAction,SDP> diff = sdp2.diffFrom(sdp1);
+		assertEquals(Set.of(ContentAction.modify), diff.keySet());
+		assertEquals("3", diff.get(ContentAction.modify).getContents().get(0).getName());
+
+		SDP applied = sdp1.applyDiff(ContentAction.modify, diff.get(ContentAction.modify));
+		assertEquals(Content.Senders.none, applied.getContent("3").get().getSenders());
+		assertSame(sdp1.getContents().get(0), applied.getContent("0").get());
+
+		// contents use session fingerprint, so they are parsed again when it changes
+		SDP sdp3 = SDP.from(changed.replace("a=fingerprint:sha-256 89:5D", "a=fingerprint:sha-256 98:5D") + "\r\n",
+							creatorProvider, Content.Creator.initiator, sdp2);
+		assertNotSame(sdp2.getContents().get(0), sdp3.getContents().get(0));
+		assertTrue(sdp3.getContents().get(0).getTransports().get(0).getFingerprint().get().getValue().startsWith("98:5D"));
+
+		SDP removed = sdp1.applyDiff(ContentAction.remove, new SDP("1", List.of(sdp1.getContents().get(1).cloneHeaderOnly()), List.of()));
+		assertEquals(3, removed.getContents().size());
+		assertTrue(removed.getContent("1").isEmpty());
+	}
+
+	@Test
+	public void testDescriptorsSharedWithinPool() {
+		Function<String,Content.Creator> creatorProvider = name -> Content.Creator.initiator;
+		DescriptorPool pool = new DescriptorPool();
+		SDP sdp1 = SDP.from(TEST_STRING, creatorProvider, Content.Creator.initiator, null, pool);
+		SDP sdp2 = SDP.from(TEST_STRING, creatorProvider, Content.Creator.initiator, null, pool);
+
+		Description video1 = sdp1.getContents().get(1).getDescription().get();
+		Description video2 = sdp2.getContents().get(3).getDescription().get();
+		assertNotSame(video1, video2);
+		assertSame(video1.getPayloads().get(0), video2.getPayloads().get(0));
+		assertSame(video1.getHdrExts().get(1), video2.getHdrExts().get(1));
+		assertSame(sdp1.getContents().get(0).getDescription().get().getHdrExts().get(1), video1.getHdrExts().get(1));
+		// opus, VP8 with 4 feedbacks, 4 header extensions
+		assertEquals(10, pool.size());
+	}
+
+	@Test
+	public void testWithCandidates() {
+		SDP sdp = SDP.from(TEST_STRING, name -> Content.Creator.initiator, Content.Creator.initiator);
+		Candidate candidate = Candidate.from("candidate:1 1 udp 2122260223 192.168.1.1 5000 typ host generation 0");
+		SDP withCandidates = sdp.withCandidates(Map.of("1", List.of(candidate)));
+
+		assertSame(sdp.getContents().get(0), withCandidates.getContents().get(0));
+		Transport transport = withCandidates.getContent("1").get().getTransports().get(0);
+		assertEquals(List.of(candidate), transport.getCandidates());
+		assertEquals("HTzj", transport.getUfrag().get());
+		assertTrue(transport.getFingerprint().isPresent());
+		assertTrue(withCandidates.toString("1", Content.Creator.initiator, SDP.Direction.outgoing)
+						   .contains("a=candidate:1 1 udp 2122260223 192.168.1.1 5000 typ host generation 0\r\n"));
+	}
+
+}
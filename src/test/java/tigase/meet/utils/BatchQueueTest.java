@@ -0,0 +1,73 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet.utils;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class BatchQueueTest {
+
+	@Test
+	public void testBatching() throws InterruptedException {
+		LinkedBlockingQueue<List<Integer>> batches = new LinkedBlockingQueue<>();
+		BatchQueue<Integer> queue = new BatchQueue<>(Duration.ofMillis(100), batches::offer);
+		for (int i = 0; i < 10; i++) {
+			queue.offer(i);
+		}
+		assertEquals(10, queue.size());
+		assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), batches.poll(5, TimeUnit.SECONDS));
+		assertEquals(0, queue.size());
+
+		queue.offer(10);
+		queue.flush();
+		assertEquals(List.of(10), batches.poll());
+		assertNull(batches.poll(300, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void testWindowAfterFlush() throws InterruptedException {
+		LinkedBlockingQueue<List<Integer>> batches = new LinkedBlockingQueue<>();
+		BatchQueue<Integer> queue = new BatchQueue<>(Duration.ofMillis(200), batches::offer);
+		queue.offer(1);
+		queue.flush();
+		assertEquals(List.of(1), batches.poll());
+
+		// delayed flush of the flushed window does not shorten the next window
+		Thread.sleep(100);
+		queue.offer(2);
+		assertNull(batches.poll(150, TimeUnit.MILLISECONDS));
+		assertEquals(List.of(2), batches.poll(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testZeroWindow() {
+		LinkedBlockingQueue<List<Integer>> batches = new LinkedBlockingQueue<>();
+		BatchQueue<Integer> queue = new BatchQueue<>(Duration.ZERO, batches::offer);
+		queue.offer(1);
+		queue.offer(2);
+		assertEquals(List.of(1), batches.poll());
+		assertEquals(List.of(2), batches.poll());
+	}
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet.utils;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class ExpiringBufferTest {
+
+	@Test
+	public void testBuffering() {
+		AtomicLong now = new AtomicLong();
+		ExpiringBuffer<String, Integer> buffer = new ExpiringBuffer<>(Duration.ofSeconds(10), now::get);
+
+		assertFalse(buffer.offer("a", 1));
+
+		buffer.expect("a");
+		assertTrue(buffer.offer("a", 1));
+		assertTrue(buffer.offer("a", 2));
+		assertFalse(buffer.offer("b", 1));
+
+		assertEquals(List.of(1, 2), buffer.remove("a"));
+		assertFalse(buffer.offer("a", 3));
+		assertTrue(buffer.remove("a").isEmpty());
+	}
+
+	@Test
+	public void testExpiration() {
+		AtomicLong now = new AtomicLong();
+		ExpiringBuffer<String, Integer> buffer = new ExpiringBuffer<>(Duration.ofSeconds(10), now::get);
+
+		buffer.expect("a");
+		assertTrue(buffer.offer("a", 1));
+		now.addAndGet(Duration.ofSeconds(5).toNanos());
+		buffer.expect("b");
+		now.addAndGet(Duration.ofSeconds(6).toNanos());
+
+		assertFalse(buffer.offer("a", 2));
+		assertEquals(1, buffer.size());
+		assertTrue(buffer.offer("b", 1));
+		now.addAndGet(Duration.ofSeconds(5).toNanos());
+		assertTrue(buffer.remove("b").isEmpty());
+		assertEquals(0, buffer.size());
+	}
+
+}
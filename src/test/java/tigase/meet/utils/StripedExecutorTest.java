@@ -0,0 +1,110 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class StripedExecutorTest {
+
+	@Test
+	public void testOrderPerKey() throws InterruptedException {
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		try {
+			StripedExecutor executor = new StripedExecutor(executorService, 3);
+			int keys = 8;
+			int tasksPerKey = 500;
+			List<List<Integer>> results = new ArrayList<>();
+			for (int i = 0; i < keys; i++) {
+				results.add(Collections.synchronizedList(new ArrayList<>()));
+			}
+			CountDownLatch latch = new CountDownLatch(keys * tasksPerKey);
+			for (int i = 0; i < tasksPerKey; i++) {
+				for (int key = 0; key < keys; key++) {
+					int value = i;
+					List<Integer> result = results.get(key);
+					executor.execute(key, () -> {
+						result.add(value);
+						latch.countDown();
+					});
+				}
+			}
+			assertTrue(latch.await(10, TimeUnit.SECONDS));
+			for (List<Integer> result : results) {
+				assertEquals(tasksPerKey, result.size());
+				for (int i = 0; i < tasksPerKey; i++) {
+					assertEquals(i, (int) result.get(i));
+				}
+			}
+			assertEquals(0, executor.getQueueSize());
+		} finally {
+			executorService.shutdown();
+		}
+	}
+
+	@Test
+	public void testResubmitOnlyWithPendingTasks() {
+		ArrayDeque<Runnable> submitted = new ArrayDeque<>();
+		StripedExecutor executor = new StripedExecutor(submitted::add, 1);
+		AtomicInteger executed = new AtomicInteger();
+		for (int i = 0; i < 64; i++) {
+			executor.execute(1, executed::incrementAndGet);
+		}
+		assertEquals(1, submitted.size());
+		submitted.poll().run();
+		assertEquals(64, executed.get());
+		// whole queue fitted in a single batch
+		assertTrue(submitted.isEmpty());
+
+		for (int i = 0; i < 65; i++) {
+			executor.execute(1, executed::incrementAndGet);
+		}
+		submitted.poll().run();
+		assertEquals(128, executed.get());
+		assertEquals(1, submitted.size());
+		submitted.poll().run();
+		assertEquals(129, executed.get());
+		assertTrue(submitted.isEmpty());
+	}
+
+	@Test
+	public void testLagStatistics() {
+		ArrayDeque<Runnable> submitted = new ArrayDeque<>();
+		StripedExecutor executor = new StripedExecutor(submitted::add, 1);
+		executor.execute(1, () -> {});
+		submitted.poll().run();
+		assertTrue(executor.getAverageLag() > 0);
+		assertTrue(executor.getMaxLag() > 0);
+
+		executor.resetLagStatistics();
+		assertEquals(0, executor.getAverageLag());
+		assertEquals(0, executor.getMaxLag());
+	}
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Tigase Meet - Video calls component for Tigase
+ * Copyright (C) 2021 Tigase, Inc. (office@tigase.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. Look for COPYING file in the top folder.
+ * If not, see http://www.gnu.org/licenses/.
+ */
+package tigase.meet.utils;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TimingWheelTest {
+
+	private static final long TICK = Duration.ofMillis(100).toNanos();
+
+	@Test
+	public void testExpiration() {
+		TimingWheel wheel = new TimingWheel(Duration.ofMillis(100), 8, 0);
+		AtomicInteger expired = new AtomicInteger();
+		wheel.schedule(Duration.ofMillis(250), expired::incrementAndGet, 0);
+		// longer than a single rotation of the wheel
+		wheel.schedule(Duration.ofMillis(1250), expired::incrementAndGet, 0);
+		assertEquals(2, wheel.size());
+
+		wheel.advance(TICK);
+		assertEquals(0, expired.get());
+		wheel.advance(3 * TICK);
+		assertEquals(1, expired.get());
+		wheel.advance(11 * TICK);
+		assertEquals(1, expired.get());
+		wheel.advance(12 * TICK);
+		assertEquals(2, expired.get());
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	public void testCancel() {
+		TimingWheel wheel = new TimingWheel(Duration.ofMillis(100), 8, 0);
+		AtomicInteger expired = new AtomicInteger();
+		TimingWheel.Timeout timeout = wheel.schedule(Duration.ofMillis(200), expired::incrementAndGet, 0);
+		assertTrue(timeout.cancel());
+		assertFalse(timeout.cancel());
+		wheel.advance(10 * TICK);
+		assertEquals(0, expired.get());
+		assertEquals(0, wheel.size());
+	}
+
+}